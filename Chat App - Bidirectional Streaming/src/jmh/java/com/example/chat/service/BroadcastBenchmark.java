@@ -0,0 +1,138 @@
+package com.example.chat.service;
+
+import com.example.chat.grpc.ChatMessage;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU per broadcast of one chat message to a room of {@code clients} members, through real
+ * gRPC calls on an in-process server: each broadcast is an {@code onNext} on every member's
+ * server call, and completes once every client has received its copy. With {@code proto} the
+ * responses use the generated marshaller, so every call serializes the message again; with
+ * {@code pre-encoded} they use {@link PreEncodedMarshaller}, as {@code ChatServiceImpl} does, so
+ * the message is serialized once per broadcast and every call copies those bytes.
+ *
+ * <p>The in-process transport hands the marshaller's stream to the client instead of framing it
+ * onto a socket, so clients read each response as raw bytes, which makes the generated
+ * marshaller serialize it just as it would for the network. Server and client run on direct
+ * executors, so everything happens on the benchmark thread and the average time reads as CPU
+ * time per broadcast.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BroadcastBenchmark {
+
+    @Param({"1000", "10000"})
+    private int clients;
+
+    @Param({"proto", "pre-encoded"})
+    private String marshalling;
+
+    private final List<StreamObserver<Object>> members = new ArrayList<>();
+    private final Semaphore delivered = new Semaphore(0);
+    private Server server;
+    private ManagedChannel channel;
+    private ChatMessage message;
+    private boolean preEncoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        message = ChatMessage.newBuilder()
+                .setId("5f1e2a40-7c3b-11ef-8a5e-0242ac120002")
+                .setUsername("User417")
+                .setMessage("Anyone else seeing the build go green on the second try?")
+                .setTimestamp(1_727_000_000_000L)
+                .setRoom("general")
+                .build();
+        preEncoded = marshalling.equals("pre-encoded");
+
+        MethodDescriptor<ChatMessage, Object> serverMethod = method(preEncoded
+                ? PreEncodedMarshaller.INSTANCE
+                : ProtoUtils.marshaller(ChatMessage.getDefaultInstance()));
+        Semaphore joined = new Semaphore(0);
+        ServerServiceDefinition service = ServerServiceDefinition.builder("bench.Broadcast")
+                .addMethod(serverMethod, ServerCalls.asyncServerStreamingCall((request, member) -> {
+                    members.add(member);
+                    joined.release();
+                }))
+                .build();
+        String name = "broadcast-" + System.nanoTime();
+        server = InProcessServerBuilder.forName(name).directExecutor().addService(service).build().start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+
+        // clients take every response as bytes, as they would off a socket
+        MethodDescriptor<ChatMessage, Object> clientMethod = method(PreEncodedMarshaller.INSTANCE);
+        StreamObserver<Object> client = new StreamObserver<>() {
+            @Override
+            public void onNext(Object value) {
+                delivered.release();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        };
+        for (int i = 0; i < clients; i++) {
+            ClientCalls.asyncServerStreamingCall(channel.newCall(clientMethod, CallOptions.DEFAULT), message, client);
+        }
+        if (!joined.tryAcquire(clients, 1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Only " + members.size() + " of " + clients + " clients joined");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(10, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public int broadcast() throws InterruptedException {
+        Object response = preEncoded ? message.toByteArray() : message;
+        for (StreamObserver<Object> member : members) {
+            member.onNext(response);
+        }
+        delivered.acquire(clients);
+        return clients;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MethodDescriptor<ChatMessage, Object> method(MethodDescriptor.Marshaller<?> responses) {
+        return MethodDescriptor.<ChatMessage, Object>newBuilder()
+                .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+                .setFullMethodName(MethodDescriptor.generateFullMethodName("bench.Broadcast", "Watch"))
+                .setRequestMarshaller(ProtoUtils.marshaller(ChatMessage.getDefaultInstance()))
+                .setResponseMarshaller((MethodDescriptor.Marshaller<Object>) responses)
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.chat.bus;
+
+import com.example.chat.grpc.ChatMessage;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries accepted chat messages between server nodes, so clients connected to different nodes
+ * share the same rooms. A node publishes each message it accepts from its own clients; every
+ * other node hands it to its listener once. Delivery may repeat (e.g. a resend after a
+ * reconnect), so listeners deduplicate by {@code ChatMessage.id}.
+ */
+public interface ChatBus {
+
+    /** Sends a message accepted on this node to every other node. Must not block on the network. */
+    void publish(ChatMessage message);
+
+    /** Sets the listener for messages published by other nodes. */
+    void onMessage(Consumer<ChatMessage> listener);
+}
@@ -0,0 +1,41 @@
+package com.example.chat.bus;
+
+import com.example.chat.grpc.ChatMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An in-process bus. On its own it is a single node with no peers, which is the default
+ * ({@code chat.bus.mode=loopback}); tests and the load generator {@link #connect} several
+ * instances to run a multi-node cluster inside one JVM.
+ */
+@Component
+@ConditionalOnProperty(name = "chat.bus.mode", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackChatBus implements ChatBus {
+
+    // peers change only while a test cluster is wired up
+    private final List<LoopbackChatBus> peers = new CopyOnWriteArrayList<>();
+    private volatile Consumer<ChatMessage> listener = message -> { };
+
+    /** Links two buses both ways, as if their nodes were connected. */
+    public void connect(LoopbackChatBus other) {
+        peers.add(other);
+        other.peers.add(this);
+    }
+
+    @Override
+    public void publish(ChatMessage message) {
+        for (LoopbackChatBus peer : peers) {
+            peer.listener.accept(message);
+        }
+    }
+
+    @Override
+    public void onMessage(Consumer<ChatMessage> listener) {
+        this.listener = listener;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.chat.bus;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** The last {@code capacity} message ids seen, for dropping messages delivered twice. */
+public final class RecentIds {
+
+    private final Map<String, Boolean> ids;
+
+    public RecentIds(int capacity) {
+        this.ids = new LinkedHashMap<>(Math.min(capacity, 1 << 16), 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** Returns {@code true} the first time an id is seen. */
+    public synchronized boolean firstTime(String id) {
+        return ids.putIfAbsent(id, Boolean.TRUE) == null;
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.chat.bus;
+
+import com.example.chat.grpc.BusAck;
+import com.example.chat.grpc.BusFrame;
+import com.example.chat.grpc.ChatMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A full mesh of TCP connections between chat nodes ({@code chat.bus.mode=tcp}). Each node
+ * listens on {@code chat.bus.bind-address}:{@code chat.bus.port} and keeps one outgoing
+ * connection to every address in {@code chat.bus.peers}; messages are never forwarded, so every
+ * node must list every other node.
+ *
+ * <p>Only hosts listed in {@code chat.bus.peers} may connect, and each connection opens with a
+ * frame carrying {@code chat.bus.secret}, which must match this node's. Frames are not encrypted;
+ * the bus is meant for a private network.
+ *
+ * <p>Every message gets a sequence number per peer, and the peer acknowledges what it has
+ * delivered. A sender keeps each message until it is acknowledged and, after a reconnect, writes
+ * everything unacknowledged again; the receiver skips numbers it has already delivered from that
+ * sender. So each message reaches every peer exactly once, as long as the sender stays up and its
+ * backlog for the peer fits in {@code chat.bus.peer-queue-capacity}. Past that, the oldest
+ * messages are dropped and logged. Each peer is written by its own thread, so a slow or
+ * unreachable peer never holds up local delivery.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "chat.bus.mode", havingValue = "tcp")
+public class TcpMeshChatBus implements ChatBus, DisposableBean {
+
+    private static final long RECONNECT_MILLIS = 1_000;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5_000;
+    /** A peer that acknowledges nothing for this long is reconnected, and its backlog resent. */
+    private static final long ACK_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long ACK_CHECK_MILLIS = 1_000;
+    private static final int MAX_WRITE_BATCH = 256;
+
+    private final String session = UUID.randomUUID().toString();
+    private final String secret;
+    private final ServerSocket server;
+    private final List<Peer> peers = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>(); // acceptor and peer senders
+    private final List<Socket> sockets = new ArrayList<>(); // every open connection, both ways
+    /** What has been delivered from each sending node, by its session. */
+    private final ConcurrentMap<String, Delivered> delivered = new ConcurrentHashMap<>();
+
+    private volatile Consumer<ChatMessage> listener = message -> { };
+    private volatile boolean running = true;
+
+    public TcpMeshChatBus(@Value("${chat.bus.bind-address:127.0.0.1}") String bindAddress,
+                          @Value("${chat.bus.port:9190}") int port,
+                          @Value("${chat.bus.peers:}") List<String> peerAddresses,
+                          @Value("${chat.bus.peer-queue-capacity:10000}") int queueCapacity,
+                          @Value("${chat.bus.secret:}") String secret) throws IOException {
+        this.secret = secret;
+        for (String address : peerAddresses) {
+            if (!address.isBlank()) {
+                peers.add(new Peer(address.trim(), queueCapacity));
+            }
+        }
+        this.server = new ServerSocket(port, 50, InetAddress.getByName(bindAddress));
+        threads.add(start("chat-bus-accept", this::accept));
+        for (Peer peer : peers) {
+            threads.add(start("chat-bus-peer-" + peer.address, peer::run));
+        }
+        log.info("Chat bus listening on {}:{} with peers {}", bindAddress, port, peerAddresses);
+    }
+
+    @Override
+    public void publish(ChatMessage message) {
+        for (Peer peer : peers) {
+            peer.enqueue(message);
+        }
+    }
+
+    @Override
+    public void onMessage(Consumer<ChatMessage> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        running = false;
+        server.close();
+        synchronized (sockets) {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+        threads.forEach(Thread::interrupt);
+    }
+
+    private void accept() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Chat bus accept failed", e);
+                }
+                continue;
+            }
+            if (!isPeer(socket.getInetAddress())) {
+                log.warn("Chat bus refused a connection from {}: not in chat.bus.peers", socket.getRemoteSocketAddress());
+                closeQuietly(socket);
+                continue;
+            }
+            track(socket);
+            start("chat-bus-read-" + socket.getRemoteSocketAddress(), () -> read(socket));
+        }
+    }
+
+    /** Whether {@code remote} is one of the configured peers; names are resolved afresh each time. */
+    private boolean isPeer(InetAddress remote) {
+        for (Peer peer : peers) {
+            try {
+                for (InetAddress address : InetAddress.getAllByName(peer.host)) {
+                    if (address.equals(remote)) {
+                        return true;
+                    }
+                }
+            } catch (UnknownHostException e) {
+                // cannot be this peer while its name does not resolve
+            }
+        }
+        return false;
+    }
+
+    /** Delivers frames from one peer, acknowledging each burst once it has been handed on. */
+    private void read(Socket socket) {
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            BusFrame hello = BusFrame.parseDelimitedFrom(in);
+            if (hello == null || hello.getSession().isEmpty() || !MessageDigest.isEqual(
+                    secret.getBytes(StandardCharsets.UTF_8), hello.getSecret().getBytes(StandardCharsets.UTF_8))) {
+                log.warn("Chat bus refused a connection from {}: bad handshake", socket.getRemoteSocketAddress());
+                return;
+            }
+            socket.setSoTimeout(0);
+            Delivered from = delivered.computeIfAbsent(hello.getSession(), s -> new Delivered());
+            BusFrame frame;
+            while ((frame = BusFrame.parseDelimitedFrom(in)) != null) {
+                from.deliver(frame);
+                if (in.available() == 0) {
+                    BusAck.newBuilder().setSequence(frame.getSequence()).build().writeDelimitedTo(out);
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                log.info("Chat bus connection from {} closed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            untrack(socket);
+        }
+    }
+
+    private void track(Socket socket) {
+        synchronized (sockets) {
+            sockets.add(socket);
+        }
+    }
+
+    private void untrack(Socket socket) {
+        synchronized (sockets) {
+            sockets.remove(socket);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing left to do with it
+        }
+    }
+
+    private static Thread start(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /** The highest sequence delivered from one sending node; frames at or below it are repeats. */
+    private final class Delivered {
+        private long sequence;
+
+        synchronized void deliver(BusFrame frame) {
+            if (frame.getSequence() > sequence) {
+                listener.accept(frame.getMessage());
+                sequence = frame.getSequence();
+            }
+        }
+    }
+
+    private final class Peer {
+        private final String address;
+        private final String host;
+        private final int port;
+        private final int capacity;
+
+        // guarded by this
+        private final ArrayDeque<BusFrame> unacked = new ArrayDeque<>(); // written, not yet acknowledged
+        private final ArrayDeque<BusFrame> pending = new ArrayDeque<>(); // not yet written on this connection
+        private long nextSequence = 1;
+        private long waitingSince;
+        private Socket connection; // null once it has failed
+
+        Peer(String address, int capacity) {
+            int colon = address.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("chat.bus.peers entries must be host:port, got " + address);
+            }
+            this.address = address;
+            this.host = address.substring(0, colon);
+            this.port = Integer.parseInt(address.substring(colon + 1));
+            this.capacity = capacity;
+        }
+
+        synchronized void enqueue(ChatMessage message) {
+            if (unacked.size() + pending.size() >= capacity) {
+                (unacked.isEmpty() ? pending : unacked).pollFirst();
+                log.warn("Chat bus backlog for {} is full ({}); dropping its oldest message", address, capacity);
+            }
+            pending.addLast(BusFrame.newBuilder().setSequence(nextSequence++).setMessage(message).build());
+            notifyAll();
+        }
+
+        synchronized void acked(long sequence) {
+            boolean progress = false;
+            while (!unacked.isEmpty() && unacked.peekFirst().getSequence() <= sequence) {
+                unacked.pollFirst();
+                progress = true;
+            }
+            if (progress) {
+                waitingSince = System.nanoTime();
+            }
+        }
+
+        void run() {
+            while (running) {
+                Socket socket = new Socket();
+                try {
+                    socket.connect(new InetSocketAddress(host, port));
+                    socket.setTcpNoDelay(true);
+                    track(socket);
+                    OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                    BusFrame.newBuilder().setSession(session).setSecret(secret).build().writeDelimitedTo(out);
+                    out.flush();
+                    log.info("Chat bus connected to {}", address);
+                    connected(socket);
+                    start("chat-bus-ack-" + address, () -> readAcks(socket));
+                    send(out);
+                } catch (IOException e) {
+                    log.debug("Chat bus peer {} unreachable: {}", address, e.getMessage());
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    untrack(socket);
+                    closeQuietly(socket);
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        /** Puts everything not yet acknowledged back in front of the queue, oldest first. */
+        private synchronized void connected(Socket socket) {
+            connection = socket;
+            while (!unacked.isEmpty()) {
+                pending.addFirst(unacked.pollLast());
+            }
+        }
+
+        private synchronized void disconnected(Socket socket) {
+            if (connection == socket) {
+                connection = null;
+                notifyAll();
+            }
+        }
+
+        /** Writes queued frames until the connection fails or the peer stops acknowledging. */
+        private void send(OutputStream out) throws IOException, InterruptedException {
+            while (running) {
+                for (BusFrame frame : takeBatch()) {
+                    frame.writeDelimitedTo(out);
+                }
+                out.flush();
+            }
+        }
+
+        private synchronized List<BusFrame> takeBatch() throws IOException, InterruptedException {
+            while (true) {
+                if (connection == null) {
+                    throw new IOException("connection closed");
+                }
+                if (!unacked.isEmpty() && System.nanoTime() - waitingSince > ACK_TIMEOUT_NANOS) {
+                    throw new IOException("no acknowledgement for " + unacked.size() + " message(s)");
+                }
+                if (!pending.isEmpty()) {
+                    break;
+                }
+                wait(ACK_CHECK_MILLIS);
+            }
+            if (unacked.isEmpty()) {
+                waitingSince = System.nanoTime();
+            }
+            List<BusFrame> batch = new ArrayList<>(Math.min(pending.size(), MAX_WRITE_BATCH));
+            while (!pending.isEmpty() && batch.size() < MAX_WRITE_BATCH) {
+                BusFrame frame = pending.pollFirst();
+                unacked.addLast(frame);
+                batch.add(frame);
+            }
+            return batch;
+        }
+
+        /** Applies the peer's acknowledgements until the connection closes. */
+        private void readAcks(Socket socket) {
+            try {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                BusAck ack;
+                while ((ack = BusAck.parseDelimitedFrom(in)) != null) {
+                    acked(ack.getSequence());
+                }
+            } catch (IOException e) {
+                log.debug("Chat bus acknowledgements from {} ended: {}", address, e.getMessage());
+            }
+            closeQuietly(socket);
+            disconnected(socket); // wakes the sender to reconnect and resend
+        }
+    }
+}
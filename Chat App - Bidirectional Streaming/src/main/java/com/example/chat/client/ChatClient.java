@@ -8,22 +8,36 @@ import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.swing.*;
+import javax.swing.text.BadLocationException;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 
+/**
+ * Swing chat client. gRPC callbacks never touch Swing: they only queue display lines in
+ * {@link PendingLines}, and a Swing timer appends whatever has arrived every
+ * {@value #RENDER_INTERVAL_MILLIS} ms in one update. The history keeps its last
+ * {@value #MAX_HISTORY_LINES} lines, so a busy room can't grow the document without bound.
+ */
 @Slf4j
 public class ChatClient {
+
+    private static final int RENDER_INTERVAL_MILLIS = 100;
+    private static final int MAX_HISTORY_LINES = 1000;
     
     private final JFrame frame;
     private final JTextArea messageHistoryArea;
     private final JTextField messageInputField;
     private final JButton sendButton;
     private final JTextField usernameField;
+    private final JTextField roomField;
+    private final PendingLines pending = new PendingLines(MAX_HISTORY_LINES);
+    private final Timer renderTimer;
     
     private ManagedChannel channel;
     private StreamObserver<ChatMessage> requestObserver;
     private String username;
+    private String room;
 
     public ChatClient() {
         // Create main frame
@@ -38,6 +52,9 @@ public class ChatClient {
         usernameField = new JTextField(15);
         usernameField.setText("User" + (int)(Math.random() * 1000));
         usernamePanel.add(usernameField);
+        usernamePanel.add(new JLabel("Room:"));
+        roomField = new JTextField("general", 10);
+        usernamePanel.add(roomField);
         JButton connectButton = new JButton("Connect");
         usernamePanel.add(connectButton);
         
@@ -48,6 +65,8 @@ public class ChatClient {
         messageHistoryArea.setWrapStyleWord(true);
         messageHistoryArea.setFont(new Font("Arial", Font.PLAIN, 14));
         JScrollPane scrollPane = new JScrollPane(messageHistoryArea);
+        renderTimer = new Timer(RENDER_INTERVAL_MILLIS, e -> render());
+        renderTimer.start();
         
         // Message input panel
         JPanel inputPanel = new JPanel(new BorderLayout(5, 5));
@@ -70,9 +89,11 @@ public class ChatClient {
         // Connect button action
         connectButton.addActionListener(e -> {
             username = usernameField.getText().trim();
+            room = roomField.getText().trim();
             if (!username.isEmpty()) {
                 connectToServer();
                 usernameField.setEnabled(false);
+                roomField.setEnabled(false);
                 connectButton.setEnabled(false);
                 messageInputField.setEnabled(true);
                 sendButton.setEnabled(true);
@@ -112,39 +133,34 @@ public class ChatClient {
             StreamObserver<ChatMessage> responseObserver = new StreamObserver<ChatMessage>() {
                 @Override
                 public void onNext(ChatMessage message) {
-                    SwingUtilities.invokeLater(() -> {
-                        String displayMessage = String.format("[%s]: %s\n", 
-                            message.getUsername(), 
-                            message.getMessage());
-                        messageHistoryArea.append(displayMessage);
-                        messageHistoryArea.setCaretPosition(messageHistoryArea.getDocument().getLength());
-                    });
+                    pending.add(String.format("[%s]: %s", message.getUsername(), message.getMessage()));
                 }
 
                 @Override
                 public void onError(Throwable t) {
                     log.error("Error in response stream", t);
-                    SwingUtilities.invokeLater(() -> {
-                        messageHistoryArea.append("ERROR: Connection lost!\n");
-                        JOptionPane.showMessageDialog(frame, "Connection error: " + t.getMessage(), 
-                            "Error", JOptionPane.ERROR_MESSAGE);
-                    });
+                    pending.add("ERROR: Connection lost!");
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame,
+                        "Connection error: " + t.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
                 }
 
                 @Override
                 public void onCompleted() {
                     log.info("Server completed the stream");
-                    SwingUtilities.invokeLater(() -> {
-                        messageHistoryArea.append("Server closed the connection.\n");
-                    });
+                    pending.add("Server closed the connection.");
                 }
             };
             
-            // Start bidirectional streaming
+            // Start bidirectional streaming and join the room
             requestObserver = asyncStub.chat(responseObserver);
+            requestObserver.onNext(ChatMessage.newBuilder()
+                .setUsername(username)
+                .setRoom(room)
+                .setTimestamp(System.currentTimeMillis())
+                .build());
             
-            messageHistoryArea.append("Connected to chat server!\n");
-            messageHistoryArea.append("You can now send messages.\n\n");
+            pending.add("Connected to chat server, room '" + (room.isEmpty() ? "general" : room) + "'!");
+            pending.add("You can now send messages.\n");
             
         } catch (Exception e) {
             log.error("Failed to connect to server", e);
@@ -161,6 +177,7 @@ public class ChatClient {
             ChatMessage message = ChatMessage.newBuilder()
                 .setUsername(username)
                 .setMessage(messageText)
+                .setRoom(room)
                 .setTimestamp(System.currentTimeMillis())
                 .build();
             
@@ -169,12 +186,31 @@ public class ChatClient {
                 messageInputField.setText("");
             } catch (Exception e) {
                 log.error("Failed to send message", e);
-                messageHistoryArea.append("ERROR: Failed to send message!\n");
+                pending.add("ERROR: Failed to send message!");
+            }
+        }
+    }
+
+    /** Runs on the EDT: appends everything pending at once and trims the oldest lines. */
+    private void render() {
+        String text = pending.drain();
+        if (text == null) {
+            return;
+        }
+        messageHistoryArea.append(text);
+        int excess = messageHistoryArea.getLineCount() - 1 - MAX_HISTORY_LINES; // text ends with '\n'
+        if (excess > 0) {
+            try {
+                messageHistoryArea.replaceRange(null, 0, messageHistoryArea.getLineStartOffset(excess));
+            } catch (BadLocationException e) {
+                log.warn("Could not trim chat history", e);
             }
         }
+        messageHistoryArea.setCaretPosition(messageHistoryArea.getDocument().getLength());
     }
 
     private void disconnect() {
+        renderTimer.stop();
         if (requestObserver != null) {
             try {
                 requestObserver.onCompleted();
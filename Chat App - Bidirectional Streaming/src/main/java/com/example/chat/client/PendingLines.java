@@ -0,0 +1,40 @@
+package com.example.chat.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Lines received but not yet shown. gRPC threads {@link #add} to it and the UI takes everything
+ * at once with {@link #drain}, so a burst of messages costs one document update instead of one
+ * per message. Only the newest {@code capacity} lines are kept; anything older would be trimmed
+ * from the history as soon as it was shown anyway. Has no Swing dependency.
+ */
+final class PendingLines {
+
+    private final int capacity;
+    private final Deque<String> lines = new ArrayDeque<>();
+
+    PendingLines(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void add(String line) {
+        if (lines.size() == capacity) {
+            lines.pollFirst();
+        }
+        lines.addLast(line);
+    }
+
+    /** Removes and joins everything pending, oldest first, or returns {@code null} if none is. */
+    synchronized String drain() {
+        if (lines.isEmpty()) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        lines.clear();
+        return text.toString();
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.chat.config;
 
+import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.cassandra.config.AbstractCassandraConfiguration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.cassandra.config.AbstractReactiveCassandraConfiguration;
 import org.springframework.data.cassandra.config.SchemaAction;
 import org.springframework.data.cassandra.core.cql.keyspace.CreateKeyspaceSpecification;
 import org.springframework.data.cassandra.core.cql.keyspace.KeyspaceOption;
@@ -12,8 +15,11 @@ import java.util.Collections;
 import java.util.List;
 
 @Configuration
-@EnableCassandraRepositories(basePackages = "com.example.chat.repository")
-public class CassandraConfig extends AbstractCassandraConfiguration {
+@Profile("!loadtest")
+@EnableCassandraRepositories(basePackages = "com.example.chat.repository",
+    excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = "com\\.example\\.chat\\.repository\\.reactive\\..*"))
+@EnableReactiveCassandraRepositories(basePackages = "com.example.chat.repository.reactive")
+public class CassandraConfig extends AbstractReactiveCassandraConfiguration {
 
     @Override
     protected String getKeyspaceName() {
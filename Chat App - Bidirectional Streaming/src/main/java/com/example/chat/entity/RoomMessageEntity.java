@@ -0,0 +1,37 @@
+package com.example.chat.entity;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.cassandra.core.mapping.PrimaryKey;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/** A message in its room's history. See {@link RoomMessageKey} for how rows are laid out. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("room_messages")
+public class RoomMessageEntity {
+
+    @PrimaryKey
+    private RoomMessageKey key;
+
+    private String username;
+    private String message;
+    private Long timestamp;
+
+    public RoomMessageEntity(String room, UUID messageId, String username, String message, Long timestamp) {
+        this(new RoomMessageKey(room, dayOf(messageId), messageId), username, message, timestamp);
+    }
+
+    /** The UTC day a time-based message id falls in, i.e. its partition. */
+    public static LocalDate dayOf(UUID messageId) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(Uuids.unixTimestamp(messageId)), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.chat.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.cassandra.core.cql.Ordering;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.CassandraType;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyClass;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A room's messages are partitioned by UTC day so no partition grows without bound, and
+ * clustered newest first by their time-based id, so the latest messages are the head of the
+ * partition.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@PrimaryKeyClass
+public class RoomMessageKey implements Serializable {
+
+    @PrimaryKeyColumn(name = "room", ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private String room;
+
+    @PrimaryKeyColumn(name = "day", ordinal = 1, type = PrimaryKeyType.PARTITIONED)
+    private LocalDate day;
+
+    @PrimaryKeyColumn(name = "message_id", ordinal = 2, type = PrimaryKeyType.CLUSTERED, ordering = Ordering.DESCENDING)
+    @CassandraType(type = CassandraType.Name.TIMEUUID)
+    private UUID messageId;
+}
@@ -0,0 +1,280 @@
+package com.example.chat.load;
+
+import com.example.chat.ChatApplication;
+import com.example.chat.grpc.ChatMessage;
+import com.example.chat.grpc.ChatServiceGrpc;
+import com.example.chat.service.ChatServiceImpl;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Headless load client for the {@code Chat} stream. Opens {@code --clients} bidirectional
+ * streams spread over {@code --rooms} rooms, sends {@code --rate} messages per second in total
+ * for {@code --warmup} plus {@code --duration} seconds, and reports how many messages were
+ * delivered and the end-to-end delivery latency percentiles.
+ *
+ * <p>Latency is the time from the {@code timestamp} a client put on a message to the moment
+ * another (or the same) client of this process received it, so a single clock is used even
+ * against a remote server. Only messages sent after the warmup are counted. Without
+ * {@code --target} the server runs in this JVM: the Spring context is started with the
+ * {@code loadtest} profile, which keeps messages in {@code InMemoryChatStore} instead of
+ * Cassandra, and {@link ChatServiceImpl} is served on an in-process channel.
+ *
+ * <pre>
+ * ./gradlew runLoadTest -PloadArgs="--clients=1000 --rooms=10 --rate=5000 --duration=30"
+ * </pre>
+ */
+@Slf4j
+public class ChatLoadGenerator {
+
+    private static final int MAX_LATENCY_MILLIS = 60_000;
+
+    private final int clients;
+    private final int rooms;
+    private final int rate;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final String payload;
+
+    // latency histogram in 1 ms buckets; the last bucket counts everything slower
+    private final AtomicLongArray latencies = new AtomicLongArray(MAX_LATENCY_MILLIS + 1);
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failedStreams = new AtomicLong();
+    private final List<LoadClient> loadClients = new ArrayList<>();
+
+    private volatile long measureFrom = Long.MAX_VALUE;
+
+    ChatLoadGenerator(Map<String, String> options) {
+        this.clients = Integer.parseInt(options.getOrDefault("clients", "100"));
+        this.rooms = Math.max(1, Integer.parseInt(options.getOrDefault("rooms", "10")));
+        this.rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        this.payload = "x".repeat(Integer.parseInt(options.getOrDefault("payload", "64")));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        ChatLoadGenerator generator = new ChatLoadGenerator(options);
+        String target = options.get("target");
+
+        if (target != null) {
+            ManagedChannel channel = ManagedChannelBuilder.forTarget(target).usePlaintext().build();
+            try {
+                generator.run(channel);
+            } finally {
+                channel.shutdownNow();
+            }
+            return;
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ChatApplication.class)
+            .profiles("loadtest")
+            .web(WebApplicationType.NONE)
+            .run(args);
+        String name = InProcessServerBuilder.generateName();
+        Server server = InProcessServerBuilder.forName(name)
+            .addService(context.getBean(ChatServiceImpl.class))
+            .build()
+            .start();
+        ManagedChannel channel = InProcessChannelBuilder.forName(name).build();
+        try {
+            generator.run(channel);
+        } finally {
+            channel.shutdownNow();
+            server.shutdownNow();
+            context.close();
+        }
+    }
+
+    void run(ManagedChannel channel) throws InterruptedException {
+        ChatServiceGrpc.ChatServiceStub stub = ChatServiceGrpc.newStub(channel);
+        for (int i = 0; i < clients; i++) {
+            LoadClient client = new LoadClient("load-" + i, "load-room-" + (i % rooms));
+            client.connect(stub);
+            loadClients.add(client);
+        }
+        log.info("Opened {} streams in {} rooms; sending {} msg/s for {}s warmup + {}s",
+            clients, rooms, rate, warmupSeconds, durationSeconds);
+
+        // fixed before the first send, so sender and receiver agree on which messages count
+        measureFrom = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(warmupSeconds);
+        ScheduledExecutorService senders = Executors.newScheduledThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        long periodMicros = Math.max(1, TimeUnit.SECONDS.toMicros(clients) / Math.max(1, rate));
+        for (LoadClient client : loadClients) {
+            long offset = ThreadLocalRandom.current().nextLong(periodMicros);
+            senders.scheduleAtFixedRate(client::send, offset, periodMicros, TimeUnit.MICROSECONDS);
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds + durationSeconds);
+        senders.shutdown();
+        senders.awaitTermination(5, TimeUnit.SECONDS);
+        long measuredMillis = System.currentTimeMillis() - measureFrom;
+
+        // let messages still in flight arrive before reporting
+        TimeUnit.SECONDS.sleep(2);
+        for (LoadClient client : loadClients) {
+            client.close();
+        }
+        report(measuredMillis);
+    }
+
+    private void report(long measuredMillis) {
+        Map<String, Integer> members = new HashMap<>();
+        for (LoadClient client : loadClients) {
+            members.merge(client.room, 1, Integer::sum);
+        }
+        long sent = 0;
+        long expected = 0;
+        for (LoadClient client : loadClients) {
+            sent += client.sent.get();
+            expected += client.sent.get() * members.get(client.room);
+        }
+
+        System.out.printf("%nClients %d, rooms %d, measured %.1fs%n", clients, rooms, measuredMillis / 1000.0);
+        System.out.printf("Sent       %,12d (%,.0f msg/s), %,d skipped while the stream was not ready%n",
+            sent, sent * 1000.0 / measuredMillis, skipped.get());
+        System.out.printf("Delivered  %,12d of %,d expected (%,.0f msg/s)%n",
+            delivered.get(), expected, delivered.get() * 1000.0 / measuredMillis);
+        if (failedStreams.get() > 0) {
+            System.out.printf("Failed     %,12d streams%n", failedStreams.get());
+        }
+        System.out.printf("Latency ms p50 %d, p90 %d, p99 %d, p99.9 %d, max %s%n",
+            percentile(0.50), percentile(0.90), percentile(0.99), percentile(0.999), max());
+    }
+
+    private long percentile(double quantile) {
+        long total = delivered.get();
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int ms = 0; ms < latencies.length(); ms++) {
+            seen += latencies.get(ms);
+            if (seen >= rank && seen > 0) {
+                return ms;
+            }
+        }
+        return 0;
+    }
+
+    private String max() {
+        for (int ms = latencies.length() - 1; ms >= 0; ms--) {
+            if (latencies.get(ms) > 0) {
+                return ms == MAX_LATENCY_MILLIS ? ">" + MAX_LATENCY_MILLIS : Long.toString(ms);
+            }
+        }
+        return "0";
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    /** One simulated user: a single stream that joins its room, sends and records what it receives. */
+    private final class LoadClient implements ClientResponseObserver<ChatMessage, ChatMessage> {
+        private final String username;
+        private final String room;
+        private final AtomicLong sent = new AtomicLong();
+        private ClientCallStreamObserver<ChatMessage> requests;
+        private volatile boolean open = true;
+
+        LoadClient(String username, String room) {
+            this.username = username;
+            this.room = room;
+        }
+
+        void connect(ChatServiceGrpc.ChatServiceStub stub) {
+            stub.chat(this);
+            requests.onNext(ChatMessage.newBuilder()
+                .setUsername(username)
+                .setRoom(room)
+                .setTimestamp(System.currentTimeMillis())
+                .build());
+        }
+
+        /** Runs on the sender pool; a client's sends never overlap, as its task is periodic. */
+        void send() {
+            if (!open) {
+                return;
+            }
+            if (!requests.isReady()) {
+                skipped.incrementAndGet();
+                return;
+            }
+            long now = System.currentTimeMillis();
+            requests.onNext(ChatMessage.newBuilder()
+                .setUsername(username)
+                .setRoom(room)
+                .setMessage(payload)
+                .setTimestamp(now)
+                .build());
+            if (now >= measureFrom) {
+                sent.incrementAndGet();
+            }
+        }
+
+        void close() {
+            if (open) {
+                open = false;
+                requests.onCompleted();
+            }
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<ChatMessage> requestStream) {
+            this.requests = requestStream;
+        }
+
+        @Override
+        public void onNext(ChatMessage message) {
+            long timestamp = message.getTimestamp();
+            if (timestamp < measureFrom || !message.getUsername().startsWith("load-")) {
+                return; // warmup, replayed or someone else's message
+            }
+            long latency = System.currentTimeMillis() - timestamp;
+            latencies.incrementAndGet((int) Math.min(Math.max(latency, 0), MAX_LATENCY_MILLIS));
+            delivered.incrementAndGet();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            open = false;
+            failedStreams.incrementAndGet();
+            log.warn("Stream of {} failed: {}", username, t.getMessage());
+        }
+
+        @Override
+        public void onCompleted() {
+            open = false;
+        }
+    }
+}
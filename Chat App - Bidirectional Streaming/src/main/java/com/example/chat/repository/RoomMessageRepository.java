@@ -0,0 +1,22 @@
+package com.example.chat.repository;
+
+import com.example.chat.entity.RoomMessageEntity;
+import com.example.chat.entity.RoomMessageKey;
+import org.springframework.data.cassandra.repository.CassandraRepository;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/** Both queries read a slice of a single (room, day) partition, newest first. */
+@Repository
+public interface RoomMessageRepository extends CassandraRepository<RoomMessageEntity, RoomMessageKey> {
+
+    @Query("SELECT * FROM room_messages WHERE room = ?0 AND day = ?1 LIMIT ?2")
+    List<RoomMessageEntity> findLatest(String room, LocalDate day, int limit);
+
+    @Query("SELECT * FROM room_messages WHERE room = ?0 AND day = ?1 AND message_id < ?2 LIMIT ?3")
+    List<RoomMessageEntity> findBefore(String room, LocalDate day, UUID before, int limit);
+}
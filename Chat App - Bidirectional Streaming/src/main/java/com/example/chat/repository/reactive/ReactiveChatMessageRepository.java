@@ -0,0 +1,11 @@
+package com.example.chat.repository.reactive;
+
+import com.example.chat.entity.ChatMessageEntity;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface ReactiveChatMessageRepository extends ReactiveCassandraRepository<ChatMessageEntity, UUID> {
+}
@@ -0,0 +1,22 @@
+package com.example.chat.repository.reactive;
+
+import com.example.chat.entity.RoomMessageEntity;
+import com.example.chat.entity.RoomMessageKey;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/** Non-blocking twin of {@code RoomMessageRepository}: the same single-partition slices, newest first. */
+@Repository
+public interface ReactiveRoomMessageRepository extends ReactiveCassandraRepository<RoomMessageEntity, RoomMessageKey> {
+
+    @Query("SELECT * FROM room_messages WHERE room = ?0 AND day = ?1 LIMIT ?2")
+    Flux<RoomMessageEntity> findLatest(String room, LocalDate day, int limit);
+
+    @Query("SELECT * FROM room_messages WHERE room = ?0 AND day = ?1 AND message_id < ?2 LIMIT ?3")
+    Flux<RoomMessageEntity> findBefore(String room, LocalDate day, UUID before, int limit);
+}
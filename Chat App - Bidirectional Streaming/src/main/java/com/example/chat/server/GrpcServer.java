@@ -8,12 +8,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.util.Scanner;
 
 @Slf4j
 @Component
+@Profile("!loadtest") // the load generator serves ChatServiceImpl in-process
 public class GrpcServer implements CommandLineRunner {
 
     @Value("${grpc.server.port:9090}")
@@ -0,0 +1,79 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.ChatMessageEntity;
+import com.example.chat.entity.RoomMessageEntity;
+import com.example.chat.grpc.ChatMessage;
+import com.example.chat.repository.RoomMessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Blocking store ({@code chat.persistence.store=blocking}, the default): writes each message to
+ * {@code chat_messages} and {@code room_messages} through the {@link ChatMessageWriter}, and
+ * reads history slices from {@code room_messages} on the bounded elastic scheduler so the
+ * repository call never runs on a gRPC thread.
+ */
+@Component
+@Profile("!loadtest")
+@ConditionalOnProperty(name = "chat.persistence.store", havingValue = "blocking", matchIfMissing = true)
+public class CassandraChatStore implements ChatStore {
+
+    @Autowired
+    private ChatMessageWriter chatMessageWriter;
+
+    @Autowired
+    private RoomMessageRepository roomMessageRepository;
+
+    @Override
+    public void save(ChatMessage message) {
+        chatMessageWriter.save(chatRow(message));
+        chatMessageWriter.save(roomRow(message));
+    }
+
+    @Override
+    public Flux<ChatMessage> slice(String room, LocalDate day, UUID before, int limit) {
+        return Mono.fromCallable(() -> before == null
+                ? roomMessageRepository.findLatest(room, day, limit)
+                : roomMessageRepository.findBefore(room, day, before, limit))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapIterable(rows -> rows)
+            .map(CassandraChatStore::toMessage);
+    }
+
+    static ChatMessageEntity chatRow(ChatMessage message) {
+        return new ChatMessageEntity(
+            message.getUsername(),
+            message.getMessage(),
+            message.getTimestamp()
+        );
+    }
+
+    static RoomMessageEntity roomRow(ChatMessage message) {
+        return new RoomMessageEntity(
+            message.getRoom(),
+            UUID.fromString(message.getId()),
+            message.getUsername(),
+            message.getMessage(),
+            message.getTimestamp()
+        );
+    }
+
+    static ChatMessage toMessage(RoomMessageEntity row) {
+        return ChatMessage.newBuilder()
+            .setId(row.getKey().getMessageId().toString())
+            .setRoom(row.getKey().getRoom())
+            .setUsername(row.getUsername())
+            .setMessage(row.getMessage())
+            .setTimestamp(row.getTimestamp() == null ? 0 : row.getTimestamp())
+            .build();
+    }
+}
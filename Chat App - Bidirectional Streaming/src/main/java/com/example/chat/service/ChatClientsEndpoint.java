@@ -0,0 +1,36 @@
+package com.example.chat.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/chatclients}: the connected clients furthest behind, with how long their
+ * oldest queued message has waited and how many are queued. Per-client figures live here rather
+ * than in metrics, where a series per client id would grow without bound.
+ */
+@Component
+@Endpoint(id = "chatclients")
+public class ChatClientsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final ChatMetrics metrics;
+
+    public ChatClientsEndpoint(ChatMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public List<ClientLag> mostLagging(@Nullable Integer limit) {
+        return metrics.mostLagging(limit == null ? DEFAULT_LIMIT : Math.max(0, limit)).stream()
+                .map(s -> new ClientLag(s.id(), s.lagNanos() / 1e6, s.queued()))
+                .toList();
+    }
+
+    public record ClientLag(String client, double lagMillis, int queued) {
+    }
+}
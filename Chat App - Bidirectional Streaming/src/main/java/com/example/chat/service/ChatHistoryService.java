@@ -0,0 +1,119 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.RoomMessageEntity;
+import com.example.chat.grpc.ChatMessage;
+import com.example.chat.grpc.HistoryPage;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads a room's history from the {@link ChatStore} ({@code room_messages}). A page walks back
+ * from today (or from the page token) one day partition at a time, reading each as a single
+ * newest-first slice, until it has {@code limit} messages or has looked back
+ * {@code chat.history.max-days} days. The page token is just the day and id of the last message
+ * returned, so the next page continues with {@code message_id < id} in the same partition.
+ * Tokens come from clients, so one whose id is not from its day, or whose day lies beyond the
+ * history window, is rejected; a day in the future is read as today.
+ *
+ * <p>A first page that {@link RecentMessages} can fill is served from memory instead. Slices are
+ * read one after another without blocking; the page is emitted when the last one arrives.
+ */
+@Service
+public class ChatHistoryService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private record Cursor(LocalDate day, UUID before) {
+    }
+
+    @Autowired
+    private ChatStore store;
+
+    @Autowired
+    private RecentMessages recentMessages;
+
+    @Value("${chat.history.max-days:30}")
+    private int maxDays;
+
+    public Mono<HistoryPage> page(String room, int limit, String pageToken) {
+        return Mono.defer(() -> {
+            int wanted = limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+            if (pageToken.isEmpty()) {
+                List<ChatMessage> cached = recentMessages.latest(room, wanted);
+                if (cached != null) {
+                    UUID last = UUID.fromString(cached.get(cached.size() - 1).getId());
+                    return Mono.just(HistoryPage.newBuilder()
+                            .addAllMessages(cached)
+                            .setNextPageToken(encode(new Cursor(RoomMessageEntity.dayOf(last), last)))
+                            .build());
+                }
+            }
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            LocalDate oldest = today.minusDays(maxDays);
+            Cursor cursor = pageToken.isEmpty() ? new Cursor(today, null) : checked(decode(pageToken), today, oldest);
+            return read(room, cursor.day(), cursor.before(), wanted, oldest, HistoryPage.newBuilder());
+        });
+    }
+
+    /** Adds the slice of {@code day} to the page, then moves on to the day before if it is still short. */
+    private Mono<HistoryPage> read(String room, LocalDate day, UUID before, int wanted, LocalDate oldest,
+                                   HistoryPage.Builder page) {
+        if (page.getMessagesCount() >= wanted || day.isBefore(oldest)) {
+            return Mono.just(page.build());
+        }
+        int needed = wanted - page.getMessagesCount();
+        return store.slice(room, day, before, needed).collectList().flatMap(messages -> {
+            page.addAllMessages(messages);
+            if (messages.size() == needed) {
+                UUID last = UUID.fromString(messages.get(messages.size() - 1).getId());
+                return Mono.just(page.setNextPageToken(encode(new Cursor(day, last))).build());
+            }
+            return read(room, day.minusDays(1), null, wanted, oldest, page);
+        });
+    }
+
+    private static Cursor checked(Cursor cursor, LocalDate today, LocalDate oldest) {
+        if (!RoomMessageEntity.dayOf(cursor.before()).equals(cursor.day())) {
+            throw invalidToken("page_token id is not from its day");
+        }
+        if (cursor.day().isBefore(oldest)) {
+            throw invalidToken("page_token is older than the " + oldest + " history limit");
+        }
+        return cursor.day().isAfter(today) ? new Cursor(today, cursor.before()) : cursor;
+    }
+
+    private static String encode(Cursor cursor) {
+        String text = cursor.day() + "/" + cursor.before();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String token) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int slash = text.indexOf('/');
+            UUID before = UUID.fromString(text.substring(slash + 1));
+            if (before.version() != 1) {
+                throw new IllegalArgumentException("not a time-based id");
+            }
+            return new Cursor(LocalDate.parse(text.substring(0, slash)), before);
+        } catch (RuntimeException e) {
+            throw invalidToken("Malformed page_token");
+        }
+    }
+
+    private static StatusRuntimeException invalidToken(String description) {
+        return Status.INVALID_ARGUMENT.withDescription(description).asRuntimeException();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.chat.service;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.cassandra.core.AsyncCassandraTemplate;
+import org.springframework.data.cassandra.core.convert.CassandraConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Persists chat message rows (any mapped entity, e.g. {@code ChatMessageEntity} and
+ * {@code RoomMessageEntity}) off the delivery path. In {@code WRITE_BEHIND} mode {@link #save}
+ * only queues the row; a writer thread collects up to {@code chat.persistence.batch-size} rows
+ * or whatever arrived within {@code chat.persistence.flush-interval-ms}, and inserts them as one
+ * burst of async writes. Concurrent single-row inserts are what Cassandra handles best; a CQL
+ * batch spanning partitions would only add coordinator work.
+ *
+ * <p>The queue is bounded. When it is full the caller waits up to
+ * {@code chat.persistence.enqueue-timeout-ms} and then writes the row itself, so a slow cluster
+ * slows down the senders instead of growing the heap or losing messages. {@code SYNC} mode
+ * writes every row before the message is broadcast, as before.
+ *
+ * <p>Used by {@link CassandraChatStore} only; {@link ReactiveCassandraChatStore} has its own
+ * queue.
+ */
+@Slf4j
+@Component
+@Profile("!loadtest")
+@ConditionalOnProperty(name = "chat.persistence.store", havingValue = "blocking", matchIfMissing = true)
+public class ChatMessageWriter implements DisposableBean {
+
+    public enum Durability {
+        /** The row is written before the message is delivered to anyone. */
+        SYNC,
+        /** The message is delivered at once and the row written shortly after, in batches. */
+        WRITE_BEHIND
+    }
+
+    private final AsyncCassandraTemplate template;
+    private final ChatMetrics metrics;
+    private final Durability durability;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long enqueueTimeoutMillis;
+    private final long writeTimeoutMillis;
+    private final BlockingQueue<Object> queue;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public ChatMessageWriter(CqlSession session, CassandraConverter converter,
+                             ChatMetrics metrics,
+                             @Value("${chat.persistence.durability:WRITE_BEHIND}") Durability durability,
+                             @Value("${chat.persistence.queue-capacity:10000}") int queueCapacity,
+                             @Value("${chat.persistence.batch-size:64}") int batchSize,
+                             @Value("${chat.persistence.flush-interval-ms:50}") long flushIntervalMillis,
+                             @Value("${chat.persistence.enqueue-timeout-ms:100}") long enqueueTimeoutMillis,
+                             @Value("${chat.persistence.write-timeout-ms:5000}") long writeTimeoutMillis) {
+        this.template = new AsyncCassandraTemplate(session, converter);
+        this.metrics = metrics;
+        this.durability = durability;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        metrics.persistenceQueue(queue);
+        this.writer = new Thread(this::run, "chat-writer");
+        this.writer.setDaemon(true);
+        if (durability == Durability.WRITE_BEHIND) {
+            this.writer.start();
+        }
+    }
+
+    public void save(Object row) {
+        if (durability == Durability.SYNC || !running) {
+            writeNow(row);
+            return;
+        }
+        try {
+            if (queue.offer(row, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        metrics.persistenceBackpressure();
+        writeNow(row);
+    }
+
+    /** Stops taking rows and writes out everything still queued. */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.join(writeTimeoutMillis + flushIntervalMillis);
+        List<Object> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                Object first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Object next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        }
+    }
+
+    private void flush(List<Object> batch) {
+        long start = System.nanoTime();
+        List<CompletableFuture<Object>> writes = new ArrayList<>(batch.size());
+        for (Object row : batch) {
+            writes.add(template.insert(row));
+        }
+        int failed = 0;
+        for (CompletableFuture<Object> write : writes) {
+            try {
+                write.get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                failed++;
+                log.debug("Chat row write failed", e);
+            } catch (InterruptedException e) {
+                failed++;
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failed > 0) {
+            log.warn("{} of {} chat rows could not be saved", failed, batch.size());
+        }
+        metrics.persisted(batch.size() - failed, failed, System.nanoTime() - start);
+    }
+
+    private void writeNow(Object row) {
+        long start = System.nanoTime();
+        template.insert(row).join();
+        metrics.persisted(1, 0, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.chat.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound delivery metrics. {@code chat.outbound.delivery} times each message from being queued
+ * for a client to being handed to gRPC, so its percentiles are the distribution of client lag.
+ * {@code chat.outbound.queue.depth} records a client's queue length each time its queue is
+ * drained. Gauges cover all clients together: {@code chat.outbound.clients},
+ * {@code chat.outbound.queued} (messages queued in total) and {@code chat.outbound.client.lag.max}.
+ * Nothing is tagged per client, so the number of series stays fixed however many connect; the
+ * {@code chatclients} actuator endpoint lists the clients furthest behind instead.
+ *
+ * <p>Persistence is tracked by {@code chat.persistence.rows{outcome=saved|failed}},
+ * {@code chat.persistence.flush} (time per write burst), {@code chat.persistence.queued} and
+ * {@code chat.persistence.backpressure} (rows a sender had to write itself because the queue was full).
+ * The reactive store instead drops rows it has no room for ({@code outcome=dropped}) and reports
+ * {@code chat.persistence.in-flight} writes.
+ *
+ * <p>The recent-message cache reports {@code chat.recent.requests{result=hit|miss}} for history
+ * reads and {@code chat.recent.bytes} for the encoded messages it holds.
+ */
+@Component
+public class ChatMetrics {
+
+    private final MeterRegistry registry;
+    private final Set<ChatSubscriber> clients = ConcurrentHashMap.newKeySet();
+    private final Timer delivery;
+    private final DistributionSummary queueDepth;
+    private final Counter sent;
+    private final Counter dropped;
+    private final Counter disconnects;
+    private final Counter rowsSaved;
+    private final Counter rowsFailed;
+    private final Counter rowsDropped;
+    private final Counter backpressure;
+    private final Timer flush;
+    private final Counter recentHits;
+    private final Counter recentMisses;
+
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.delivery = Timer.builder("chat.outbound.delivery")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.queueDepth = DistributionSummary.builder("chat.outbound.queue.depth")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        Gauge.builder("chat.outbound.clients", clients, Set::size).register(registry);
+        Gauge.builder("chat.outbound.queued", clients,
+                        c -> c.stream().mapToLong(ChatSubscriber::queued).sum())
+                .register(registry);
+        Gauge.builder("chat.outbound.client.lag.max", clients,
+                        c -> c.stream().mapToLong(ChatSubscriber::lagNanos).max().orElse(0) / 1e6)
+                .baseUnit("milliseconds")
+                .register(registry);
+        this.sent = registry.counter("chat.outbound.messages", "outcome", "sent");
+        this.dropped = registry.counter("chat.outbound.messages", "outcome", "dropped");
+        this.disconnects = registry.counter("chat.outbound.overflow.disconnects");
+        this.rowsSaved = registry.counter("chat.persistence.rows", "outcome", "saved");
+        this.rowsFailed = registry.counter("chat.persistence.rows", "outcome", "failed");
+        this.rowsDropped = registry.counter("chat.persistence.rows", "outcome", "dropped");
+        this.backpressure = registry.counter("chat.persistence.backpressure");
+        this.flush = registry.timer("chat.persistence.flush");
+        this.recentHits = registry.counter("chat.recent.requests", "result", "hit");
+        this.recentMisses = registry.counter("chat.recent.requests", "result", "miss");
+    }
+
+    void sent(long queuedNanos) {
+        sent.increment();
+        delivery.record(queuedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void queueDepth(int queued) {
+        queueDepth.record(queued);
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void overflowDisconnect() {
+        disconnects.increment();
+    }
+
+    void persistenceQueue(Collection<?> queue) {
+        registry.gaugeCollectionSize("chat.persistence.queued", List.of(), queue);
+    }
+
+    void persisted(int saved, int failed, long nanos) {
+        rowsSaved.increment(saved);
+        rowsFailed.increment(failed);
+        flush.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void persistenceBackpressure() {
+        backpressure.increment();
+    }
+
+    void persistenceDropped(int rows) {
+        rowsDropped.increment(rows);
+    }
+
+    void persistenceInFlight(AtomicInteger writes) {
+        registry.gauge("chat.persistence.in-flight", writes);
+    }
+
+    void recentBytes(AtomicLong bytes) {
+        registry.gauge("chat.recent.bytes", bytes);
+    }
+
+    void recentHit() {
+        recentHits.increment();
+    }
+
+    void recentMiss() {
+        recentMisses.increment();
+    }
+
+    /** Counts the client in the aggregate gauges until it is {@linkplain #remove removed}. */
+    void register(ChatSubscriber subscriber) {
+        clients.add(subscriber);
+    }
+
+    void remove(ChatSubscriber subscriber) {
+        clients.remove(subscriber);
+    }
+
+    /** The {@code limit} connected clients whose oldest queued message has waited longest. */
+    List<ChatSubscriber> mostLagging(int limit) {
+        return clients.stream()
+                .sorted(Comparator.comparingLong(ChatSubscriber::lagNanos).reversed())
+                .limit(limit)
+                .toList();
+    }
+}
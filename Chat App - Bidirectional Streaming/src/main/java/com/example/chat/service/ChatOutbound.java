@@ -0,0 +1,50 @@
+package com.example.chat.service;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates a {@link ChatSubscriber} for each connected client and owns the small pool their
+ * drain tasks run on. Writes never block (they stop as soon as a call is not ready), so the
+ * pool only needs about one thread per core however many clients are connected.
+ */
+@Component
+public class ChatOutbound implements DisposableBean {
+
+    private final ChatMetrics metrics;
+    private final ChatOverflowPolicy policy;
+    private final int queueCapacity;
+    private final ExecutorService executor;
+    private final AtomicLong clients = new AtomicLong();
+
+    public ChatOutbound(ChatMetrics metrics,
+                        @Value("${chat.outbound.overflow-policy:DROP_OLDEST}") ChatOverflowPolicy policy,
+                        @Value("${chat.outbound.queue-capacity:256}") int queueCapacity,
+                        @Value("${chat.outbound.threads:0}") int threads) {
+        this.metrics = metrics;
+        this.policy = policy;
+        this.queueCapacity = queueCapacity;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "chat-outbound-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public ChatSubscriber subscribe(ServerCallStreamObserver<byte[]> call) {
+        return new ChatSubscriber("client-" + clients.incrementAndGet(), call, executor, policy, queueCapacity, metrics);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
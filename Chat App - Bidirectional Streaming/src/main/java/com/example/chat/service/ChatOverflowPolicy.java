@@ -0,0 +1,11 @@
+package com.example.chat.service;
+
+/** What a client's outbound queue does when a message arrives and the queue is already full. */
+public enum ChatOverflowPolicy {
+    /** Discard the oldest queued message to make room; the client sees the most recent chat. */
+    DROP_OLDEST,
+    /** Discard the new message; the client sees a gap after what it already has queued. */
+    DROP_NEWEST,
+    /** Close the client's stream with {@code RESOURCE_EXHAUSTED}. */
+    DISCONNECT
+}
@@ -0,0 +1,60 @@
+package com.example.chat.service;
+
+import com.example.chat.grpc.ChatMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tracks which client streams are in which chat room. Joining and leaving touch only the one
+ * room's member set, and a room disappears with its last member, so neither depends on how many
+ * clients are connected overall.
+ */
+@Component
+public class ChatRoomRegistry {
+
+    public static final String DEFAULT_ROOM = "general";
+
+    private final ConcurrentMap<String, Set<ChatSubscriber>> rooms = new ConcurrentHashMap<>();
+
+    public static String roomOf(ChatMessage message) {
+        return roomName(message.getRoom());
+    }
+
+    public static String roomName(String requested) {
+        String room = requested.trim();
+        return room.isEmpty() ? DEFAULT_ROOM : room;
+    }
+
+    public void join(String room, ChatSubscriber member) {
+        rooms.compute(room, (name, members) -> {
+            Set<ChatSubscriber> set = members == null ? ConcurrentHashMap.newKeySet() : members;
+            set.add(member);
+            return set;
+        });
+    }
+
+    public void leave(String room, ChatSubscriber member) {
+        rooms.computeIfPresent(room, (name, members) -> {
+            members.remove(member);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    /** Current members of the room; a live view, safe to iterate while others join and leave. */
+    public Set<ChatSubscriber> members(String room) {
+        Set<ChatSubscriber> members = rooms.get(room);
+        return members == null ? Collections.emptySet() : members;
+    }
+
+    public Set<String> rooms() {
+        return Collections.unmodifiableSet(rooms.keySet());
+    }
+
+    public int memberCount(String room) {
+        return members(room).size();
+    }
+}
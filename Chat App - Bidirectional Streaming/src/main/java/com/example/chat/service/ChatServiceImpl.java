@@ -1,105 +1,218 @@
 package com.example.chat.service;
 
-import com.example.chat.entity.ChatMessageEntity;
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.chat.bus.ChatBus;
+import com.example.chat.bus.RecentIds;
 import com.example.chat.grpc.ChatMessage;
 import com.example.chat.grpc.ChatServiceGrpc;
-import com.example.chat.repository.ChatMessageRepository;
+import com.example.chat.grpc.HistoryPage;
+import com.example.chat.grpc.HistoryRequest;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
 import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-
 @Slf4j
 @Service
 public class ChatServiceImpl extends ChatServiceGrpc.ChatServiceImplBase {
 
     @Autowired
-    private ChatMessageRepository chatMessageRepository;
+    private ChatStore store;
+
+    @Autowired
+    private ChatRoomRegistry rooms;
+
+    @Autowired
+    private ChatOutbound outbound;
+
+    @Autowired
+    private ChatHistoryService history;
+
+    @Autowired
+    private RecentMessages recentMessages;
+
+    @Autowired
+    private ChatBus bus;
 
-    private final List<StreamObserver<ChatMessage>> observers = new CopyOnWriteArrayList<>();
+    @Value("${chat.bus.dedup-capacity:100000}")
+    private int dedupCapacity;
 
+    private RecentIds seen;
+
+    /**
+     * Messages accepted on other nodes arrive through the {@link ChatBus} and are delivered to
+     * this node's members of the room, once per id. The node that accepted a message also
+     * persisted it, so they are not saved again here.
+     */
+    @PostConstruct
+    void listenToBus() {
+        seen = new RecentIds(dedupCapacity);
+        bus.onMessage(message -> {
+            if (!message.getId().isEmpty() && seen.firstTime(message.getId())) {
+                publish(ChatRoomRegistry.roomOf(message), message);
+            }
+        });
+    }
+
+    /**
+     * {@code Chat} responses are bound with {@link PreEncodedMarshaller}: a broadcast message is
+     * serialized once and the same bytes are written to every recipient's call, instead of gRPC
+     * marshalling the message again for each of them.
+     */
     @Override
-    public StreamObserver<ChatMessage> chat(StreamObserver<ChatMessage> responseObserver) {
-        log.info("New client connected for bidirectional streaming");
-        
-        // Add this observer to the list of active observers
-        observers.add(responseObserver);
-        log.info("Total connected clients: {}", observers.size());
+    public ServerServiceDefinition bindService() {
+        MethodDescriptor<ChatMessage, ChatMessage> generated = ChatServiceGrpc.getChatMethod();
+        MethodDescriptor<ChatMessage, byte[]> chat = generated
+            .toBuilder(generated.getRequestMarshaller(), PreEncodedMarshaller.INSTANCE)
+            .build();
+
+        ServiceDescriptor service = ServiceDescriptor.newBuilder(ChatServiceGrpc.SERVICE_NAME)
+            .setSchemaDescriptor(ChatServiceGrpc.getServiceDescriptor().getSchemaDescriptor())
+            .addMethod(chat)
+            .addMethod(ChatServiceGrpc.getGetHistoryMethod())
+            .build();
+
+        return ServerServiceDefinition.builder(service)
+            .addMethod(chat, ServerCalls.asyncBidiStreamingCall(this::openChat))
+            .addMethod(ChatServiceGrpc.getGetHistoryMethod(), ServerCalls.asyncUnaryCall(this::getHistory))
+            .build();
+    }
+
+    /**
+     * Messages are handed to each recipient's {@link ChatSubscriber} queue and written by its
+     * own drain task, so the sender's thread never waits on another client's stream.
+     */
+    private StreamObserver<ChatMessage> openChat(StreamObserver<byte[]> responseObserver) {
+        ChatSubscriber subscriber = outbound.subscribe((ServerCallStreamObserver<byte[]>) responseObserver);
+        log.info("New client {} connected for bidirectional streaming", subscriber.id());
 
         return new StreamObserver<ChatMessage>() {
+            // inbound callbacks on one call never overlap, so no synchronization is needed
+            private String room;
+
             @Override
             public void onNext(ChatMessage message) {
-                log.info("Received message from {}: {}", message.getUsername(), message.getMessage());
-                
-                // Save to Cassandra
-                ChatMessageEntity entity = new ChatMessageEntity(
-                    message.getUsername(),
-                    message.getMessage(),
-                    message.getTimestamp()
-                );
-                chatMessageRepository.save(entity);
-                
-                // Broadcast to all connected clients
-                for (StreamObserver<ChatMessage> observer : observers) {
-                    try {
-                        observer.onNext(message);
-                        log.debug("Message broadcasted to a client");
-                    } catch (Exception e) {
-                        log.error("Error sending message to client", e);
-                        observers.remove(observer);
+                String target = ChatRoomRegistry.roomOf(message);
+                if (!target.equals(room)) {
+                    if (room != null) {
+                        rooms.leave(room, subscriber);
                     }
+                    // a joining client first gets the room's recent messages
+                    recentMessages.join(target, () -> rooms.join(target, subscriber), subscriber::offer);
+                    // also leave when the server ends the stream, which never reaches onError here
+                    subscriber.onRelease(() -> rooms.leave(target, subscriber));
+                    room = target;
+                    log.info("{} joined room '{}' ({} members)", message.getUsername(), target, rooms.memberCount(target));
                 }
+                if (message.getMessage().isEmpty()) {
+                    return; // join only
+                }
+
+                log.info("Received message from {} in '{}': {}", message.getUsername(), target, message.getMessage());
+
+                // Save to Cassandra and broadcast to the members of the room on every node
+                ChatMessage accepted = accept(message, target);
+                persist(accepted);
+                publish(target, accepted);
+                bus.publish(accepted);
             }
 
             @Override
             public void onError(Throwable t) {
                 log.error("Error in chat stream", t);
-                observers.remove(responseObserver);
-                log.info("Client disconnected. Total clients: {}", observers.size());
+                leave();
             }
 
             @Override
             public void onCompleted() {
-                log.info("Client disconnected gracefully");
-                observers.remove(responseObserver);
-                log.info("Total connected clients: {}", observers.size());
-                responseObserver.onCompleted();
+                log.info("Client {} disconnected gracefully", subscriber.id());
+                leave();
+                subscriber.complete();
+            }
+
+            private void leave() {
+                if (room != null) {
+                    rooms.leave(room, subscriber);
+                    log.info("Client {} left room '{}' ({} members)", subscriber.id(), room, rooms.memberCount(room));
+                    room = null;
+                }
             }
         };
     }
 
+    /** Sends the server's message to every room. */
     public void broadcastServerMessage(ChatMessage serverMessage) {
-        if (observers.isEmpty()) {
+        if (rooms.rooms().isEmpty()) {
             log.warn("No connected clients to broadcast to");
             return;
         }
 
-        // Save to Cassandra
-        ChatMessageEntity entity = new ChatMessageEntity(
-            serverMessage.getUsername(),
-            serverMessage.getMessage(),
-            serverMessage.getTimestamp()
-        );
-        chatMessageRepository.save(entity);
-        log.debug("Server message saved to Cassandra");
-
-        // Broadcast to all connected clients
         int clientCount = 0;
-        log.info("Broadcasting server message to {} observers", observers.size());
-        for (StreamObserver<ChatMessage> observer : observers) {
-            try {
-                observer.onNext(serverMessage);
-                clientCount++;
-                log.info("✓ Server message sent to client #{}", clientCount);
-            } catch (Exception e) {
-                log.error("✗ Error sending message to client: {}", e.getMessage());
-                observers.remove(observer);
-            }
+        for (String room : rooms.rooms()) {
+            ChatMessage accepted = accept(serverMessage, room);
+            persist(accepted);
+            clientCount += publish(room, accepted);
+            bus.publish(accepted);
         }
 
         log.info("★ Server message broadcasted to {} client(s)", clientCount);
     }
+
+    @Override
+    public void getHistory(HistoryRequest request, StreamObserver<HistoryPage> responseObserver) {
+        String room = ChatRoomRegistry.roomName(request.getRoom());
+        // answered from the driver's callback, so this thread is not held while Cassandra reads
+        history.page(room, request.getLimit(), request.getPageToken()).subscribe(
+            page -> {
+                responseObserver.onNext(page);
+                responseObserver.onCompleted();
+            },
+            responseObserver::onError);
+    }
+
+    /**
+     * Stamps the message with its room and a time-based id, which orders it in the history and
+     * identifies it across nodes.
+     */
+    private ChatMessage accept(ChatMessage message, String room) {
+        ChatMessage accepted = message.toBuilder()
+            .setId(Uuids.timeBased().toString())
+            .setRoom(room)
+            .build();
+        seen.firstTime(accepted.getId());
+        return accepted;
+    }
+
+    private void persist(ChatMessage message) {
+        store.save(message);
+    }
+
+    /**
+     * Serializes the message once, caches the bytes for joining clients and queues the same
+     * bytes for everyone in the room.
+     */
+    private int publish(String room, ChatMessage message) {
+        byte[] encoded = message.toByteArray();
+        int[] queued = new int[1];
+        recentMessages.publish(room, encoded, () -> queued[0] = broadcast(room, encoded));
+        return queued[0];
+    }
+
+    private int broadcast(String room, byte[] encoded) {
+        int queued = 0;
+        for (ChatSubscriber member : rooms.members(room)) {
+            if (member.offer(encoded)) {
+                queued++;
+            }
+        }
+        log.debug("Message queued for {} client(s) in '{}'", queued, room);
+        return queued;
+    }
 }
@@ -0,0 +1,28 @@
+package com.example.chat.service;
+
+import com.example.chat.grpc.ChatMessage;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Where accepted messages are kept. {@link ReactiveCassandraChatStore} is the default
+ * ({@code chat.persistence.store=reactive}), {@link CassandraChatStore} the blocking
+ * alternative, and the {@code loadtest} profile swaps in {@link InMemoryChatStore} so the server
+ * can be driven without a cluster.
+ *
+ * <p>Both methods are called on gRPC threads. Neither waits for the database, except
+ * {@link #save} in the blocking store's {@code SYNC} mode, which is what that mode asks for.
+ */
+public interface ChatStore {
+
+    /** Persists a message that already has its room and time-based id. */
+    void save(ChatMessage message);
+
+    /**
+     * Up to {@code limit} messages of one (room, day) partition, newest first, all older than
+     * {@code before} if it is not {@code null}.
+     */
+    Flux<ChatMessage> slice(String room, LocalDate day, UUID before, int limit);
+}
@@ -0,0 +1,188 @@
+package com.example.chat.service;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One client's outbound side. Messages arrive already serialized, since the same bytes go to
+ * every member of a room. Senders only {@link #offer} messages into a bounded lock-free
+ * queue and return; a drain task on the shared outbound executor writes them to the call while
+ * gRPC reports it ready, and is rescheduled when the call becomes ready again. At most one drain
+ * task runs per client, so the call's {@code StreamObserver} is never used from two threads at
+ * once and a slow client only backs up its own queue.
+ *
+ * <p>However the stream ends (completed, cancelled, or closed by the server on overflow or a
+ * failed write) the subscriber is released once and runs its {@link #onRelease} action, which
+ * takes it out of its room.
+ */
+@Slf4j
+public final class ChatSubscriber {
+
+    private record Queued(byte[] message, long queuedNanos) {
+    }
+
+    private final String id;
+    private final ServerCallStreamObserver<byte[]> call;
+    private final Executor executor;
+    private final ChatOverflowPolicy policy;
+    private final int capacity;
+    private final ChatMetrics metrics;
+
+    private final ConcurrentLinkedQueue<Queued> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private volatile Status closeWith;
+    private volatile boolean completeWhenDrained;
+    private volatile boolean closed;
+    private volatile Runnable onRelease = () -> { };
+
+    ChatSubscriber(String id, ServerCallStreamObserver<byte[]> call, Executor executor,
+                   ChatOverflowPolicy policy, int capacity, ChatMetrics metrics) {
+        this.id = id;
+        this.call = call;
+        this.executor = executor;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.metrics = metrics;
+        metrics.register(this);
+        call.setOnReadyHandler(this::schedule);
+        call.setOnCancelHandler(this::release);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Queues an encoded {@code ChatMessage} for this client without blocking. Returns {@code false} if it was not
+     * queued because the client is gone or its queue is full.
+     */
+    public boolean offer(byte[] message) {
+        if (closed || closeWith != null || completeWhenDrained) {
+            return false;
+        }
+        if (size.incrementAndGet() > capacity) {
+            switch (policy) {
+                case DROP_OLDEST -> {
+                    if (queue.poll() != null) {
+                        size.decrementAndGet();
+                        metrics.dropped();
+                    }
+                }
+                case DROP_NEWEST -> {
+                    size.decrementAndGet();
+                    metrics.dropped();
+                    return false;
+                }
+                case DISCONNECT -> {
+                    size.decrementAndGet();
+                    metrics.overflowDisconnect();
+                    log.warn("Client {} fell {} messages behind; disconnecting", id, capacity);
+                    close(Status.RESOURCE_EXHAUSTED.withDescription("Client fell more than " + capacity + " messages behind"));
+                    return false;
+                }
+            }
+        }
+        queue.add(new Queued(message, System.nanoTime()));
+        schedule();
+        return true;
+    }
+
+    /** Completes the stream once everything already queued has been written. */
+    public void complete() {
+        completeWhenDrained = true;
+        schedule();
+    }
+
+    /** Fails the stream with {@code status}, discarding anything still queued. */
+    public void close(Status status) {
+        closeWith = status;
+        schedule();
+    }
+
+    /**
+     * Sets what to do when the stream ends, replacing the previous action. Runs it at once if the
+     * stream has already ended, so a client that goes away while joining still leaves the room.
+     */
+    public void onRelease(Runnable action) {
+        onRelease = action;
+        if (released.get()) {
+            action.run();
+        }
+    }
+
+    /** Messages queued and not yet written. */
+    public int queued() {
+        return size.get();
+    }
+
+    /** How long the oldest queued message has been waiting, or 0 if none is. */
+    public long lagNanos() {
+        Queued head = queue.peek();
+        return head == null ? 0 : System.nanoTime() - head.queuedNanos();
+    }
+
+    private void schedule() {
+        if (closed || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            release();
+        }
+    }
+
+    private void drain() {
+        try {
+            if (closeWith != null) {
+                closed = true;
+                call.onError(closeWith.asRuntimeException());
+            } else {
+                metrics.queueDepth(size.get());
+                Queued next;
+                while (!closed && call.isReady() && (next = queue.poll()) != null) {
+                    size.decrementAndGet();
+                    call.onNext(next.message());
+                    metrics.sent(System.nanoTime() - next.queuedNanos());
+                }
+                if (!closed && completeWhenDrained && queue.isEmpty()) {
+                    closed = true;
+                    call.onCompleted();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.debug("Client {} stream closed while writing", id, e);
+            closed = true;
+        } finally {
+            draining.set(false);
+        }
+
+        if (closed) {
+            release();
+        } else if (closeWith != null || (!queue.isEmpty() && call.isReady())
+                || (completeWhenDrained && queue.isEmpty())) {
+            schedule(); // work arrived while this drain was finishing
+        }
+    }
+
+    private void release() {
+        closed = true;
+        queue.clear();
+        size.set(0);
+        if (released.compareAndSet(false, true)) {
+            metrics.remove(this);
+            onRelease.run();
+        }
+    }
+}
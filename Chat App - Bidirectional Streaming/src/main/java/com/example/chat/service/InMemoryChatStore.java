@@ -0,0 +1,71 @@
+package com.example.chat.service;
+
+import com.example.chat.entity.RoomMessageEntity;
+import com.example.chat.grpc.ChatMessage;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Cassandra stand-in for load tests: the same (room, day) partitions, ordered newest first by
+ * time-based id, held in memory. Each partition keeps only its latest
+ * {@value #MAX_PER_PARTITION} messages so a long run cannot exhaust the heap.
+ */
+@Component
+@Profile("loadtest")
+public class InMemoryChatStore implements ChatStore {
+
+    static final int MAX_PER_PARTITION = 10_000;
+
+    private static final Comparator<UUID> NEWEST_FIRST =
+        Comparator.comparingLong(UUID::timestamp).thenComparing(Comparator.naturalOrder()).reversed();
+
+    private record Partition(String room, LocalDate day) {
+    }
+
+    private final ConcurrentMap<Partition, ConcurrentSkipListMap<UUID, ChatMessage>> partitions = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(ChatMessage message) {
+        UUID id = UUID.fromString(message.getId());
+        ConcurrentSkipListMap<UUID, ChatMessage> partition = partitions.computeIfAbsent(
+            new Partition(message.getRoom(), RoomMessageEntity.dayOf(id)), p -> new ConcurrentSkipListMap<>(NEWEST_FIRST));
+        partition.put(id, message);
+        while (partition.size() > MAX_PER_PARTITION) {
+            partition.pollLastEntry();
+        }
+    }
+
+    @Override
+    public Flux<ChatMessage> slice(String room, LocalDate day, UUID before, int limit) {
+        return Flux.fromIterable(read(room, day, before, limit));
+    }
+
+    private List<ChatMessage> read(String room, LocalDate day, UUID before, int limit) {
+        NavigableMap<UUID, ChatMessage> partition = partitions.get(new Partition(room, day));
+        if (partition == null) {
+            return List.of();
+        }
+        if (before != null) {
+            partition = partition.tailMap(before, false);
+        }
+        List<ChatMessage> messages = new ArrayList<>(Math.min(limit, partition.size()));
+        for (ChatMessage message : partition.values()) {
+            if (messages.size() == limit) {
+                break;
+            }
+            messages.add(message);
+        }
+        return messages;
+    }
+}
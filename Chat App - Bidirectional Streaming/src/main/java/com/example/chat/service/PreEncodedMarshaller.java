@@ -0,0 +1,53 @@
+package com.example.chat.service;
+
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes a message that was serialized ahead of time, so a chat message broadcast to a whole
+ * room is serialized once instead of once per recipient. The bytes must already be a valid
+ * {@code ChatMessage}; clients keep using the generated {@code ChatServiceGrpc} stubs.
+ */
+public final class PreEncodedMarshaller implements MethodDescriptor.Marshaller<byte[]> {
+
+    public static final PreEncodedMarshaller INSTANCE = new PreEncodedMarshaller();
+
+    private PreEncodedMarshaller() {
+    }
+
+    @Override
+    public InputStream stream(byte[] value) {
+        return new EncodedStream(value);
+    }
+
+    @Override
+    public byte[] parse(InputStream stream) {
+        try {
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class EncodedStream extends ByteArrayInputStream implements KnownLength, Drainable {
+
+        EncodedStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int drainTo(OutputStream target) throws IOException {
+            int remaining = count - pos;
+            target.write(buf, pos, remaining);
+            pos = count;
+            return remaining;
+        }
+    }
+}
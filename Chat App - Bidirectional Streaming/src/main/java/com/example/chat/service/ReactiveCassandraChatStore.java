@@ -0,0 +1,172 @@
+package com.example.chat.service;
+
+import com.example.chat.grpc.ChatMessage;
+import com.example.chat.repository.reactive.ReactiveChatMessageRepository;
+import com.example.chat.repository.reactive.ReactiveRoomMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reactive store ({@code chat.persistence.store=reactive}) on the reactive repositories.
+ * {@link #save} hands the message to a bounded multi-producer queue
+ * ({@code chat.persistence.queue-capacity}) that one writer thread drains; its
+ * {@code chat_messages} and {@code room_messages} inserts are issued from there with at most
+ * {@code chat.persistence.max-in-flight} writes outstanding, and complete on the driver's
+ * threads. History slices are streamed the same way, so no gRPC thread waits on a read.
+ *
+ * <p>What happens when the queue is full is {@code chat.persistence.overflow}. {@code BLOCK},
+ * the default, makes the sender wait for room, so a slow cluster slows senders down and no row
+ * is lost. {@code DROP} never waits: the message is still delivered but not saved, and is logged
+ * and counted as {@code chat.persistence.rows{outcome=dropped}}.
+ */
+@Slf4j
+@Component
+@Profile("!loadtest")
+@ConditionalOnProperty(name = "chat.persistence.store", havingValue = "reactive")
+public class ReactiveCassandraChatStore implements ChatStore, DisposableBean {
+
+    public enum Overflow {
+        /** The sender waits until the row fits in the queue. */
+        BLOCK,
+        /** The row is not saved. */
+        DROP
+    }
+
+    /** Put on the queue at shutdown, after the last message; compared by identity. */
+    private static final ChatMessage END = ChatMessage.newBuilder().setId("end-of-queue").build();
+
+    private final ReactiveChatMessageRepository chatMessages;
+    private final ReactiveRoomMessageRepository roomMessages;
+    private final ChatMetrics metrics;
+    private final Overflow overflow;
+    private final Duration writeTimeout;
+    private final BlockingQueue<ChatMessage> queue;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Scheduler writer = Schedulers.newSingle("chat-reactive-writer", true);
+    private final CompletableFuture<Void> drained;
+
+    private volatile boolean closed;
+
+    public ReactiveCassandraChatStore(ReactiveChatMessageRepository chatMessages,
+                                      ReactiveRoomMessageRepository roomMessages,
+                                      ChatMetrics metrics,
+                                      @Value("${chat.persistence.overflow:BLOCK}") Overflow overflow,
+                                      @Value("${chat.persistence.queue-capacity:10000}") int queueCapacity,
+                                      @Value("${chat.persistence.max-in-flight:256}") int maxInFlight,
+                                      @Value("${chat.persistence.write-timeout-ms:5000}") long writeTimeoutMillis) {
+        this.chatMessages = chatMessages;
+        this.roomMessages = roomMessages;
+        this.metrics = metrics;
+        this.overflow = overflow;
+        this.writeTimeout = Duration.ofMillis(writeTimeoutMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        metrics.persistenceQueue(queue);
+        metrics.persistenceInFlight(inFlight);
+        // the writer thread takes a message only when flatMap has room for its inserts
+        this.drained = Flux.<ChatMessage>generate(sink -> {
+                try {
+                    ChatMessage next = queue.take();
+                    if (next == END) {
+                        sink.complete();
+                    } else {
+                        sink.next(next);
+                    }
+                } catch (InterruptedException e) {
+                    sink.complete();
+                }
+            })
+            .subscribeOn(writer)
+            .flatMapIterable(this::inserts)
+            .flatMap(this::write, maxInFlight)
+            .then()
+            .toFuture();
+    }
+
+    @Override
+    public void save(ChatMessage message) {
+        if (!closed && queue.offer(message)) {
+            return;
+        }
+        if (!closed && overflow == Overflow.BLOCK) {
+            metrics.persistenceBackpressure();
+            try {
+                queue.put(message);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        metrics.persistenceDropped(2);
+        log.warn("Chat message {} not saved: persistence queue is {}", message.getId(), closed ? "closed" : "full");
+    }
+
+    @Override
+    public Flux<ChatMessage> slice(String room, LocalDate day, UUID before, int limit) {
+        return (before == null
+                ? roomMessages.findLatest(room, day, limit)
+                : roomMessages.findBefore(room, day, before, limit))
+            .map(CassandraChatStore::toMessage);
+    }
+
+    /** Stops taking messages and waits for everything queued or in flight to be written. */
+    @Override
+    public void destroy() throws InterruptedException {
+        closed = true;
+        try {
+            if (queue.offer(END, writeTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                drained.get(writeTimeout.toMillis() * 2, TimeUnit.MILLISECONDS);
+            } else {
+                log.warn("Chat rows still pending at shutdown were not all written: queue did not drain");
+            }
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Chat rows still pending at shutdown were not all written", e);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private List<Mono<?>> inserts(ChatMessage message) {
+        return List.of(
+            chatMessages.insert(CassandraChatStore.chatRow(message)),
+            roomMessages.insert(CassandraChatStore.roomRow(message))
+        );
+    }
+
+    /** Runs one insert, recording its outcome; a failed row is logged and never fails the stream. */
+    private Mono<Void> write(Mono<?> insert) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            return insert
+                .timeout(writeTimeout)
+                .doOnSuccess(row -> metrics.persisted(1, 0, System.nanoTime() - start))
+                .onErrorResume(e -> {
+                    metrics.persisted(0, 1, System.nanoTime() - start);
+                    log.debug("Chat row write failed", e);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .then();
+        });
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.chat.service;
+
+import com.example.chat.grpc.ChatMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The last few messages of every active room, kept as serialized bytes in a per-room ring so
+ * joining clients and the first page of {@code GetHistory} don't go to Cassandra. Memory is
+ * bounded three ways: messages per room ({@code chat.recent.messages-per-room}), bytes per room
+ * ({@code chat.recent.max-bytes-per-room}) and rooms ({@code chat.recent.max-rooms}; the room
+ * used least recently is evicted). A ring only allocates its slots once a message is written, so
+ * rooms that only see joins stay cheap.
+ *
+ * <p>A room's ring lock is also held while a message is fanned out and while a client joins,
+ * so a joining client gets every message exactly once: either in its replay or live, never both.
+ * Fan-out only queues, so holding the lock is cheap. An evicted ring is marked under its lock
+ * before it leaves the map, and callers that find a marked ring retry, so a room never has two
+ * rings in use at once.
+ */
+@Component
+public class RecentMessages {
+
+    // access ordered, so the first entry is the least recently used room; guarded by itself
+    private final LinkedHashMap<String, Ring> rooms = new LinkedHashMap<>(16, 0.75f, true);
+    private final ChatMetrics metrics;
+    private final int messagesPerRoom;
+    private final int maxBytesPerRoom;
+    private final int maxRooms;
+    private final AtomicLong bytes = new AtomicLong();
+
+    public RecentMessages(ChatMetrics metrics,
+                          @Value("${chat.recent.messages-per-room:100}") int messagesPerRoom,
+                          @Value("${chat.recent.max-bytes-per-room:65536}") int maxBytesPerRoom,
+                          @Value("${chat.recent.max-rooms:10000}") int maxRooms) {
+        this.metrics = metrics;
+        this.messagesPerRoom = Math.max(1, messagesPerRoom);
+        this.maxBytesPerRoom = maxBytesPerRoom;
+        this.maxRooms = Math.max(1, maxRooms);
+        metrics.recentBytes(bytes);
+    }
+
+    /**
+     * Records an encoded message in its room's ring, then runs {@code fanOut} under the room's
+     * lock. The ring keeps the caller's array, so it must not be modified afterwards.
+     */
+    public void publish(String room, byte[] encoded, Runnable fanOut) {
+        while (true) {
+            Ring ring = ring(room);
+            synchronized (ring) {
+                if (ring.evicted) {
+                    continue;
+                }
+                ring.add(encoded);
+                fanOut.run();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs {@code join} and hands every cached message of the room, encoded and oldest first,
+     * to {@code replay}, with no message published in between.
+     */
+    public void join(String room, Runnable join, Consumer<byte[]> replay) {
+        while (true) {
+            Ring ring = ring(room);
+            synchronized (ring) {
+                if (ring.evicted) {
+                    continue;
+                }
+                join.run();
+                List<byte[]> cached = ring.newestFirst(messagesPerRoom);
+                for (int i = cached.size() - 1; i >= 0; i--) {
+                    replay.accept(cached.get(i));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * The room's {@code limit} newest messages, newest first, or {@code null} when fewer than
+     * that are cached and the caller has to read the repository.
+     */
+    public List<ChatMessage> latest(String room, int limit) {
+        Ring ring;
+        synchronized (rooms) {
+            ring = rooms.get(room);
+        }
+        List<byte[]> cached = null;
+        if (ring != null) {
+            synchronized (ring) {
+                if (ring.size() >= limit) {
+                    cached = ring.newestFirst(limit);
+                }
+            }
+        }
+        if (cached == null) {
+            metrics.recentMiss();
+            return null;
+        }
+        metrics.recentHit();
+        List<ChatMessage> messages = new ArrayList<>(cached.size());
+        for (byte[] encoded : cached) {
+            messages.add(parse(encoded));
+        }
+        return messages;
+    }
+
+    /** The room's ring, created if needed; evicts the least recently used room beyond the limit. */
+    private Ring ring(String room) {
+        Ring ring;
+        Map.Entry<String, Ring> eldest = null;
+        synchronized (rooms) {
+            ring = rooms.get(room);
+            if (ring == null) {
+                ring = new Ring();
+                rooms.put(room, ring);
+                if (rooms.size() > maxRooms) {
+                    Iterator<Map.Entry<String, Ring>> it = rooms.entrySet().iterator();
+                    eldest = it.next();
+                }
+            }
+        }
+        if (eldest != null) {
+            evict(eldest.getKey(), eldest.getValue());
+        }
+        return ring;
+    }
+
+    /**
+     * Marks the ring evicted under its own lock, so nobody is using it, and only then removes
+     * it; until it is gone, callers that find it retry.
+     */
+    private void evict(String room, Ring ring) {
+        synchronized (ring) {
+            ring.clear();
+        }
+        synchronized (rooms) {
+            rooms.remove(room, ring);
+        }
+    }
+
+    private static ChatMessage parse(byte[] encoded) {
+        try {
+            return ChatMessage.parseFrom(encoded);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Corrupt cached chat message", e);
+        }
+    }
+
+    /** Fixed-size ring of encoded messages, guarded by its own monitor. */
+    private final class Ring {
+        private byte[][] slots; // allocated on the first write
+        private int head; // next slot to write
+        private int size;
+        private int ringBytes;
+        private boolean evicted;
+
+        void add(byte[] encoded) {
+            if (evicted || encoded.length > maxBytesPerRoom) {
+                return;
+            }
+            if (slots == null) {
+                slots = new byte[messagesPerRoom][];
+            }
+            if (size == slots.length) {
+                dropOldest();
+            }
+            while (ringBytes + encoded.length > maxBytesPerRoom) {
+                dropOldest();
+            }
+            slots[head] = encoded;
+            head = (head + 1) % slots.length;
+            size++;
+            ringBytes += encoded.length;
+            bytes.addAndGet(encoded.length);
+        }
+
+        int size() {
+            return size;
+        }
+
+        List<byte[]> newestFirst(int limit) {
+            int n = Math.min(limit, size);
+            List<byte[]> result = new ArrayList<>(n);
+            for (int i = 1; i <= n; i++) {
+                result.add(slots[Math.floorMod(head - i, slots.length)]);
+            }
+            return result;
+        }
+
+        void clear() {
+            evicted = true;
+            while (size > 0) {
+                dropOldest();
+            }
+            slots = null;
+        }
+
+        private void dropOldest() {
+            int oldest = Math.floorMod(head - size, slots.length);
+            ringBytes -= slots[oldest].length;
+            bytes.addAndGet(-slots[oldest].length);
+            slots[oldest] = null;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.chat.service;
+
+import com.datastax.oss.driver.api.core.uuid.Uuids;
+import com.example.chat.grpc.ChatMessage;
+import com.example.chat.grpc.HistoryPage;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatHistoryServiceTest {
+
+    private static final String ROOM = "lobby";
+
+    private final ChatHistoryService history = new ChatHistoryService();
+    private final List<String> sentIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        InMemoryChatStore store = new InMemoryChatStore();
+        ReflectionTestUtils.setField(history, "store", store);
+        ReflectionTestUtils.setField(history, "recentMessages",
+            new RecentMessages(new ChatMetrics(new SimpleMeterRegistry()), 100, 65536, 100));
+        ReflectionTestUtils.setField(history, "maxDays", 30);
+        for (int i = 0; i < 5; i++) {
+            ChatMessage message = ChatMessage.newBuilder()
+                .setId(Uuids.timeBased().toString())
+                .setRoom(ROOM)
+                .setUsername("user")
+                .setMessage("message " + i)
+                .build();
+            store.save(message);
+            sentIds.add(0, message.getId()); // newest first, as pages are
+        }
+    }
+
+    @Test
+    void pageTokensWalkTheWholeHistoryOnce() {
+        List<String> read = new ArrayList<>();
+        String token = "";
+        int pages = 0;
+        do {
+            HistoryPage page = history.page(ROOM, 2, token).block();
+            page.getMessagesList().forEach(m -> read.add(m.getId()));
+            token = page.getNextPageToken();
+            pages++;
+        } while (!token.isEmpty());
+
+        assertThat(read).containsExactlyElementsOf(sentIds);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void tokenFromTheFutureIsReadAsToday() {
+        LocalDate tomorrow = LocalDate.now(ZoneOffset.UTC).plusDays(1);
+        UUID before = Uuids.startOf(tomorrow.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + 1_000);
+
+        HistoryPage page = history.page(ROOM, 10, token(tomorrow + "/" + before)).block();
+
+        assertThat(page.getMessagesList()).extracting(ChatMessage::getId).containsExactlyElementsOf(sentIds);
+    }
+
+    @Test
+    void tokensOutsideTheWindowOrNotMatchingTheirDayAreRejected() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate old = today.minusDays(40);
+        UUID oldId = Uuids.startOf(old.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli());
+
+        assertInvalid(token(old + "/" + oldId));
+        assertInvalid(token(today + "/" + oldId));
+        assertInvalid(token("9999-12-31/" + Uuids.timeBased()));
+        assertInvalid(token(today + "/" + UUID.randomUUID()));
+        assertInvalid("not a token");
+    }
+
+    private void assertInvalid(String token) {
+        assertThatThrownBy(() -> history.page(ROOM, 10, token).block())
+            .satisfies(e -> assertThat(Status.fromThrowable(e).getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT));
+    }
+
+    private static String token(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
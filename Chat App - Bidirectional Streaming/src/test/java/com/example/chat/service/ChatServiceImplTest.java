@@ -0,0 +1,70 @@
+package com.example.chat.service;
+
+import com.example.chat.bus.LoopbackChatBus;
+import com.example.chat.grpc.ChatMessage;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatServiceImplTest {
+
+    private final ChatMetrics metrics = new ChatMetrics(new SimpleMeterRegistry());
+
+    @Test
+    void messageArrivingTwiceFromAnotherNodeIsDeliveredOnce() throws Exception {
+        LoopbackChatBus nodeA = new LoopbackChatBus();
+        LoopbackChatBus nodeB = new LoopbackChatBus();
+        nodeA.connect(nodeB);
+        ChatRoomRegistry rooms = node(nodeB);
+        RecordingCall call = new RecordingCall();
+        rooms.join("lobby", new ChatSubscriber("b-1", call, Runnable::run, ChatOverflowPolicy.DROP_OLDEST, 16, metrics));
+
+        ChatMessage message = ChatMessage.newBuilder()
+            .setId("5f0c6a2e-0000-1000-8000-000000000001")
+            .setRoom("lobby")
+            .setUsername("alice")
+            .setMessage("hello")
+            .build();
+        nodeA.publish(message);
+        nodeA.publish(message); // e.g. resent after a reconnect
+        nodeA.publish(message.toBuilder().setId("5f0c6a2e-0000-1000-8000-000000000002").build());
+
+        assertThat(call.sent).hasSize(2);
+        assertThat(ChatMessage.parseFrom(call.sent.get(0))).isEqualTo(message);
+    }
+
+    /** A node listening on {@code bus}, returning its rooms. */
+    private ChatRoomRegistry node(LoopbackChatBus bus) {
+        ChatRoomRegistry rooms = new ChatRoomRegistry();
+        ChatServiceImpl service = new ChatServiceImpl();
+        ReflectionTestUtils.setField(service, "rooms", rooms);
+        ReflectionTestUtils.setField(service, "recentMessages", new RecentMessages(metrics, 100, 65536, 100));
+        ReflectionTestUtils.setField(service, "bus", bus);
+        ReflectionTestUtils.setField(service, "dedupCapacity", 1000);
+        service.listenToBus();
+        return rooms;
+    }
+
+    /** A call that is always ready and keeps what is written to it. */
+    private static final class RecordingCall extends ServerCallStreamObserver<byte[]> {
+        final List<byte[]> sent = new ArrayList<>();
+
+        @Override public boolean isReady() { return true; }
+        @Override public boolean isCancelled() { return false; }
+        @Override public void setOnReadyHandler(Runnable onReadyHandler) { }
+        @Override public void setOnCancelHandler(Runnable onCancelHandler) { }
+        @Override public void setCompression(String compression) { }
+        @Override public void disableAutoInboundFlowControl() { }
+        @Override public void request(int count) { }
+        @Override public void setMessageCompression(boolean enable) { }
+        @Override public void onNext(byte[] value) { sent.add(value); }
+        @Override public void onError(Throwable t) { }
+        @Override public void onCompleted() { }
+    }
+}
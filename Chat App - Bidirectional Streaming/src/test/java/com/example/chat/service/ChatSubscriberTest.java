@@ -0,0 +1,80 @@
+package com.example.chat.service;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatSubscriberTest {
+
+    private final ChatMetrics metrics = new ChatMetrics(new SimpleMeterRegistry());
+    private final ChatRoomRegistry rooms = new ChatRoomRegistry();
+
+    @Test
+    void disconnectedSlowConsumerLeavesItsRoom() {
+        StuckCall call = new StuckCall();
+        ChatSubscriber slow = new ChatSubscriber("slow", call, Runnable::run, ChatOverflowPolicy.DISCONNECT, 2, metrics);
+        rooms.join("lobby", slow);
+        slow.onRelease(() -> rooms.leave("lobby", slow));
+
+        assertThat(slow.offer(new byte[]{1})).isTrue();
+        assertThat(slow.offer(new byte[]{2})).isTrue();
+        assertThat(slow.offer(new byte[]{3})).isFalse();
+
+        assertThat(call.error).isNotNull();
+        assertThat(Status.fromThrowable(call.error).getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+        assertThat(rooms.members("lobby")).doesNotContain(slow);
+        assertThat(rooms.rooms()).isEmpty();
+    }
+
+    @Test
+    void releaseActionSetAfterTheStreamEndedRunsAtOnce() {
+        StuckCall call = new StuckCall();
+        ChatSubscriber gone = new ChatSubscriber("gone", call, Runnable::run, ChatOverflowPolicy.DROP_OLDEST, 2, metrics);
+        call.onCancel.run();
+
+        rooms.join("lobby", gone);
+        gone.onRelease(() -> rooms.leave("lobby", gone));
+
+        assertThat(rooms.rooms()).isEmpty();
+    }
+
+    @Test
+    void clientsAreCountedWithoutAPerClientSeries() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ChatMetrics counted = new ChatMetrics(registry);
+        StuckCall call = new StuckCall();
+        ChatSubscriber client = new ChatSubscriber("client-1", call, Runnable::run, ChatOverflowPolicy.DROP_OLDEST, 8, counted);
+        client.offer(new byte[]{1});
+        client.offer(new byte[]{2});
+
+        assertThat(registry.get("chat.outbound.clients").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("chat.outbound.queued").gauge().value()).isEqualTo(2);
+        assertThat(registry.getMeters()).allSatisfy(meter -> assertThat(meter.getId().getTag("client")).isNull());
+        assertThat(counted.mostLagging(10)).containsExactly(client);
+
+        call.onCancel.run();
+        assertThat(registry.get("chat.outbound.clients").gauge().value()).isZero();
+        assertThat(counted.mostLagging(10)).isEmpty();
+    }
+
+    /** A call that is never ready, so everything offered stays queued. */
+    private static final class StuckCall extends ServerCallStreamObserver<byte[]> {
+        Throwable error;
+        Runnable onCancel = () -> { };
+
+        @Override public boolean isReady() { return false; }
+        @Override public boolean isCancelled() { return false; }
+        @Override public void setOnReadyHandler(Runnable onReadyHandler) { }
+        @Override public void setOnCancelHandler(Runnable onCancelHandler) { onCancel = onCancelHandler; }
+        @Override public void setCompression(String compression) { }
+        @Override public void disableAutoInboundFlowControl() { }
+        @Override public void request(int count) { }
+        @Override public void setMessageCompression(boolean enable) { }
+        @Override public void onNext(byte[] value) { }
+        @Override public void onError(Throwable t) { error = t; }
+        @Override public void onCompleted() { }
+    }
+}
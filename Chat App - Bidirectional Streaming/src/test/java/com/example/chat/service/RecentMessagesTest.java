@@ -0,0 +1,102 @@
+package com.example.chat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentMessagesTest {
+
+    private static final int MESSAGES = 20_000;
+    private static final int JOINERS = 100;
+
+    /**
+     * One thread publishes numbered messages to a room while another keeps joining it and a third
+     * keeps touching other rooms, so with {@code max-rooms=1} the room's ring is evicted and
+     * recreated all the time. Whatever the interleaving, every joiner must see a gap-free run of
+     * messages, replayed then live, up to the last one published.
+     */
+    @Test
+    void joinersMissNothingAndSeeNothingTwiceWhileTheRoomIsEvicted() throws InterruptedException {
+        RecentMessages recent = new RecentMessages(new ChatMetrics(new SimpleMeterRegistry()), 20, 65536, 1);
+        List<Member> members = new CopyOnWriteArrayList<>();
+        AtomicInteger published = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+        Thread publisher = new Thread(() -> {
+            for (int i = 0; i < MESSAGES; i++) {
+                int sequence = i;
+                recent.publish("lobby", encode(sequence), () -> {
+                    for (Member member : members) {
+                        member.receive(sequence);
+                    }
+                });
+                published.set(i + 1);
+            }
+            done.set(true);
+        });
+        Thread joiner = new Thread(() -> {
+            for (int i = 0; i < JOINERS; i++) {
+                // stop well before the last message, so every joiner has something to receive live
+                while (published.get() < MESSAGES / 2 * i / JOINERS) {
+                    Thread.onSpinWait();
+                }
+                Member member = new Member();
+                recent.join("lobby", () -> members.add(member), encoded -> member.receive(decode(encoded)));
+            }
+        });
+        Thread evictor = new Thread(() -> {
+            for (int i = 0; !done.get(); i++) {
+                recent.join("other-" + (i % 2), () -> { }, encoded -> { });
+            }
+        });
+        for (Thread thread : List.of(publisher, joiner, evictor)) {
+            thread.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+            thread.start();
+        }
+        for (Thread thread : List.of(publisher, joiner, evictor)) {
+            thread.join(60_000);
+        }
+
+        assertThat(failures).isEmpty();
+        assertThat(members).hasSize(JOINERS);
+        for (Member member : members) {
+            List<Integer> received = member.received();
+            assertThat(received).isNotEmpty();
+            assertThat(received.get(received.size() - 1)).isEqualTo(MESSAGES - 1);
+            for (int i = 1; i < received.size(); i++) {
+                assertThat(received.get(i)).as("message after %d", received.get(i - 1))
+                        .isEqualTo(received.get(i - 1) + 1);
+            }
+        }
+    }
+
+    private static byte[] encode(int sequence) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(sequence).array();
+    }
+
+    private static int decode(byte[] encoded) {
+        return ByteBuffer.wrap(encoded).getInt();
+    }
+
+    /** A room member that records what it was sent, replayed or live. */
+    private static final class Member {
+        private final List<Integer> received = new ArrayList<>();
+
+        synchronized void receive(int sequence) {
+            received.add(sequence);
+        }
+
+        synchronized List<Integer> received() {
+            return new ArrayList<>(received);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-ball and per-innings cost of {@link CricketEngine}. Run with {@code ./gradlew jmh}; the
+ * gc profiler's {@code gc.alloc.rate.norm} should read 0 B/op for the {@code bowl} and
+ * {@code inningsIntoBuffer} variants. The {@code TableModel} variants draw from the phased
+ * example table through an {@link AliasSampler} instead of the built-in lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CricketEngineBenchmark {
+
+    private CricketEngine engine;
+    private CricketEngine tableEngine;
+    private InningsBuffer buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        engine = new CricketEngine(new SplittableRandom(42));
+        try (InputStream in = getClass().getResourceAsStream("/outcome-models/t6-phases.properties")) {
+            tableEngine = new CricketEngine(new SplittableRandom(42), TableOutcomeModel.load(in));
+        }
+        buffer = new InningsBuffer();
+    }
+
+    @Benchmark
+    public CricketEngine.Ball next() {
+        return engine.next(1, 1);
+    }
+
+    @Benchmark
+    public int bowl() {
+        return engine.bowl();
+    }
+
+    @Benchmark
+    public void inningsIntoBuffer(Blackhole bh) {
+        engine.reset();
+        engine.playInnings(buffer, 0);
+        bh.consume(buffer.finalTotal());
+    }
+
+    @Benchmark
+    public int bowlTableModel() {
+        if (tableEngine.legalBalls() >= CricketEngine.OVERS * CricketEngine.BALLS) {
+            tableEngine.reset();
+        }
+        return tableEngine.bowl();
+    }
+
+    @Benchmark
+    public void inningsIntoBufferTableModel(Blackhole bh) {
+        tableEngine.reset();
+        tableEngine.playInnings(buffer, 0);
+        bh.consume(buffer.finalTotal());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.grpc;
+
+import com.example.match.ScoreFrame;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one ball into bytes: building the {@link ScoreUpdate}, serializing it, and
+ * writing an already encoded {@link ScoreFrame} through {@link PreEncodedMarshaller}, and the
+ * compact delta encoding. The {@code stats} pair produces both encodings of a ball, with and
+ * without {@link MatchStats}: once by serializing the update twice, once the way
+ * {@link ScoreFrame} does it by appending a separately encoded stats suffix.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScoreUpdateBenchmark {
+
+    private ScoreUpdate update;
+    private ScoreUpdate previous;
+    private byte[] encoded;
+    private ScoreFrame frame;
+    private MatchStats stats;
+
+    @Setup
+    public void setUp() {
+        update = build();
+        encoded = update.toByteArray();
+        previous = update.toBuilder().setBall(2).setRuns(0).setTotal(43).setComment("Dot ball").build();
+        frame = ScoreFrame.of(1, update, false, previous);
+        stats = MatchStats.newBuilder()
+                .setCurrentRunRate(11.75)
+                .setRequiredRunRate(8.4)
+                .setProjectedScore(70)
+                .setPartnershipRuns(18)
+                .setPartnershipBalls(11)
+                .addRunsPerOver(9).addRunsPerOver(14).addRunsPerOver(11).addRunsPerOver(13)
+                .setRunsRequired(14)
+                .setBallsRemaining(10)
+                .build();
+    }
+
+    @Benchmark
+    public ScoreUpdate build() {
+        return ScoreUpdate.newBuilder()
+                .setInnings(2)
+                .setTarget(61)
+                .setOver(4)
+                .setBall(3)
+                .setRuns(4)
+                .setTotal(47)
+                .setWickets(3)
+                .setComment("FOUR!")
+                .setStatus("PLAY")
+                .build();
+    }
+
+    @Benchmark
+    public byte[] buildAndSerialize() {
+        return build().toByteArray();
+    }
+
+    @Benchmark
+    public ScoreUpdate parse() throws InvalidProtocolBufferException {
+        return ScoreUpdate.parseFrom(encoded);
+    }
+
+    @Benchmark
+    public int writePreEncodedFrame() throws IOException {
+        try (InputStream stream = PreEncodedMarshaller.INSTANCE.stream(frame.bytes())) {
+            return (int) stream.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeCompactDelta() {
+        return CompactScoreCodec.encode(1, update, false, previous).toByteArray();
+    }
+
+    @Benchmark
+    public int statsReserialized() {
+        byte[] plain = update.toByteArray();
+        byte[] withStats = update.toBuilder().setStats(stats).build().toByteArray();
+        return plain.length + withStats.length;
+    }
+
+    @Benchmark
+    public int statsSuffix() {
+        ScoreFrame withStats = ScoreFrame.of(1, update, false, previous, stats);
+        return withStats.bytes().length + withStats.bytesWithStats().length;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.grpc;
+
+import com.example.engine.MatchSimulator;
+import com.example.engine.OutcomeModel;
+import com.example.match.BallLogStore;
+import com.example.match.MatchRegistry;
+import com.example.match.MatchScheduler;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@code StreamScore} over an in-process channel. Requests ask for
+ * {@code PACE_AS_FAST_AS_POSSIBLE} with a fixed seed, so one operation is the same whole match
+ * streamed as fast as the server can produce it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamScoreBenchmark {
+
+    private static final StreamRequest REQUEST = StreamRequest.newBuilder()
+            .setPace(Pace.PACE_AS_FAST_AS_POSSIBLE)
+            .setSeed(42)
+            .build();
+
+    private MatchScheduler scheduler;
+    private MatchSimulator simulator;
+    private Server server;
+    private ManagedChannel channel;
+    private ScoreServiceGrpc.ScoreServiceBlockingStub stub;
+
+    @Setup
+    public void setUp() throws IOException {
+        scheduler = new MatchScheduler(700, 0);
+        simulator = new MatchSimulator(1);
+        ScoreServiceImpl service = new ScoreServiceImpl(
+                new MatchRegistry(scheduler, new BallLogStore(Files.createTempDirectory("ball-log"), 1 << 16),
+                        OutcomeModel.standard(), Integer.MAX_VALUE),
+                new ScoreStreamMetrics(new SimpleMeterRegistry()),
+                simulator,
+                SlowConsumerPolicy.DISCONNECT,
+                Integer.MAX_VALUE,
+                12,
+                64,
+                "identity",
+                1);
+
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(service)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub = ScoreServiceGrpc.newBlockingStub(channel);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        scheduler.destroy();
+        simulator.close();
+    }
+
+    @Benchmark
+    public int privateMatch() {
+        return drain(stub.streamScore(REQUEST));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int privateMatchConcurrent() {
+        return drain(stub.streamScore(REQUEST));
+    }
+
+    @Benchmark
+    public int privateMatchBatched() {
+        int frames = 0;
+        Iterator<ScoreBatch> batches = stub.streamScoreBatched(REQUEST);
+        while (batches.hasNext()) {
+            frames += batches.next().getUpdatesCount();
+        }
+        return frames;
+    }
+
+    private static int drain(Iterator<ScoreUpdate> updates) {
+        int frames = 0;
+        while (updates.hasNext()) {
+            updates.next();
+            frames++;
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.config;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The pool gRPC call handlers run on, or {@code null} when gRPC's own choice applies. It is a
+ * bean of this type rather than an {@link ExecutorService} so that Spring Boot still creates its
+ * own {@code applicationTaskExecutor}, which it skips as soon as any {@code Executor} bean exists.
+ */
+record GrpcCallExecutor(ExecutorService executor) {
+
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -1,29 +1,107 @@
 package com.example.config;
 
+import com.example.grpc.DeflateCodec;
 import com.example.grpc.ScoreServiceImpl;
+import com.example.grpc.StreamBytesTracerFactory;
+import com.example.match.MatchRegistry;
+import io.grpc.Codec;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
 import io.grpc.protobuf.services.ProtoReflectionService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+import java.util.concurrent.Executors;
+
+@Slf4j
 @Configuration
 public class GrpcServerConfig {
 
+    /**
+     * How the server runs call handlers and listener callbacks.
+     * <ul>
+     *   <li>{@code DEFAULT} - gRPC's shared cached thread pool</li>
+     *   <li>{@code VIRTUAL} - a new virtual thread per task</li>
+     *   <li>{@code BOUNDED} - a fixed pool of {@code grpc.server.executor-threads} platform threads</li>
+     *   <li>{@code DIRECT} - run on the transport threads. Only for private matches: a stream
+     *       with a {@code match_id} goes through {@code MatchRegistry.watch}, which creates or
+     *       opens the match's ball log (file I/O and mmap) on the calling thread</li>
+     * </ul>
+     */
+    public enum ExecutorMode { DEFAULT, VIRTUAL, BOUNDED, DIRECT }
+
     @Value("${grpc.server.port:9091}")
     private int grpcPort;
 
+    @Value("${grpc.server.executor:DEFAULT}")
+    private ExecutorMode executorMode;
+
+    @Value("${grpc.server.executor-threads:0}")
+    private int executorThreads;
+
     @Bean
-    public Server grpcServer(ScoreServiceImpl service) throws Exception {
-        Server server = ServerBuilder.forPort(grpcPort)
+    public HealthStatusManager grpcHealth() {
+        return new HealthStatusManager();
+    }
+
+    /**
+     * The pool call handlers run on in {@code VIRTUAL} and {@code BOUNDED} mode; none in the
+     * other modes, where gRPC's own choice applies.
+     */
+    @Bean(destroyMethod = "shutdown")
+    GrpcCallExecutor grpcCallExecutor() {
+        return new GrpcCallExecutor(switch (executorMode) {
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-vt-", 0).factory());
+            case BOUNDED -> Executors.newFixedThreadPool(
+                    executorThreads > 0 ? executorThreads : Runtime.getRuntime().availableProcessors() * 2);
+            default -> null;
+        });
+    }
+
+    /** Built here, started and stopped by {@link GrpcServerLifecycle}. */
+    @Bean(destroyMethod = "")
+    public Server grpcServer(ScoreServiceImpl service, StreamBytesTracerFactory bytesTracer, HealthStatusManager health,
+                             GrpcCallExecutor callExecutor) {
+        CompressorRegistry compressors = CompressorRegistry.newEmptyInstance();
+        DecompressorRegistry decompressors = DecompressorRegistry.getDefaultInstance();
+        for (var codec : List.of(new Codec.Gzip(), Codec.Identity.NONE, DeflateCodec.INSTANCE)) {
+            compressors.register(codec);
+            decompressors = decompressors.with(codec, true);
+        }
+
+        ServerBuilder<?> builder = ServerBuilder.forPort(grpcPort)
                 .addService(service)
+                .addService(health.getHealthService())
                 .addService(ProtoReflectionService.newInstance())
-                .build()
-                .start();
+                .compressorRegistry(compressors)
+                .decompressorRegistry(decompressors)
+                .addStreamTracerFactory(bytesTracer);
 
-        Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown));
+        if (callExecutor.executor() != null) {
+            builder.executor(callExecutor.executor());
+        } else if (executorMode == ExecutorMode.DIRECT) {
+            log.warn("gRPC handlers run on transport threads; streams with a match_id do ball log file I/O there");
+            builder.directExecutor();
+        }
+        // otherwise keep gRPC's default cached executor
+        return builder.build();
+    }
 
-        return server;
+    @Bean
+    public GrpcServerLifecycle grpcServerLifecycle(Server grpcServer,
+                                                   GrpcCallExecutor callExecutor,
+                                                   HealthStatusManager health, MatchRegistry registry,
+                                                   ApplicationEventPublisher events,
+                                                   @Value("${cricket.shutdown.readiness-grace-ms:0}") long readinessGraceMillis,
+                                                   @Value("${cricket.shutdown.drain-timeout-ms:10000}") long drainTimeoutMillis) {
+        return new GrpcServerLifecycle(grpcServer, callExecutor, health, registry, events,
+                readinessGraceMillis, drainTimeoutMillis);
     }
 }
@@ -0,0 +1,104 @@
+package com.example.config;
+
+import com.example.match.MatchRegistry;
+import io.grpc.Server;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.protobuf.services.HealthStatusManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the gRPC server once the context is up, resuming any matches a previous process handed
+ * off, and drains it on shutdown instead of dropping every stream:
+ * <ol>
+ *   <li>readiness goes to {@code REFUSING_TRAFFIC} and the gRPC health service to
+ *       {@code NOT_SERVING}, then the node waits {@code cricket.shutdown.readiness-grace-ms} for
+ *       load balancers to notice;</li>
+ *   <li>the registry stops taking viewers and suspends every match, snapshotting named ones so
+ *       the next process resumes them; viewers get {@code UNAVAILABLE} and reconnect with
+ *       {@code from_sequence};</li>
+ *   <li>the server stops taking calls and gets {@code cricket.shutdown.drain-timeout-ms} for the
+ *       remaining ones before they are cancelled.</li>
+ * </ol>
+ * Runs in the last lifecycle phase, so all of this happens before the web server shuts down.
+ */
+@Slf4j
+public class GrpcServerLifecycle implements SmartLifecycle {
+
+    private final Server server;
+    private final GrpcCallExecutor callExecutor;
+    private final HealthStatusManager health;
+    private final MatchRegistry registry;
+    private final ApplicationEventPublisher events;
+    private final long readinessGraceMillis;
+    private final long drainTimeoutMillis;
+
+    private volatile boolean running;
+
+    GrpcServerLifecycle(Server server, GrpcCallExecutor callExecutor, HealthStatusManager health, MatchRegistry registry,
+                        ApplicationEventPublisher events, long readinessGraceMillis, long drainTimeoutMillis) {
+        this.server = server;
+        this.callExecutor = callExecutor;
+        this.health = health;
+        this.registry = registry;
+        this.events = events;
+        this.readinessGraceMillis = readinessGraceMillis;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+
+    @Override
+    public void start() {
+        int resumed = registry.resumeSuspended();
+        if (resumed > 0) {
+            log.info("Resumed {} match(es) handed off by the previous process", resumed);
+        }
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start gRPC server", e);
+        }
+        health.setStatus(HealthStatusManager.SERVICE_NAME_ALL_SERVICES, ServingStatus.SERVING);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        AvailabilityChangeEvent.publish(events, this, ReadinessState.REFUSING_TRAFFIC);
+        health.enterTerminalState();
+        try {
+            if (readinessGraceMillis > 0) {
+                Thread.sleep(readinessGraceMillis);
+            }
+            int handedOff = registry.drain();
+            log.info("Suspended {} match(es) for the next process to resume", handedOff);
+
+            server.shutdown();
+            if (!server.awaitTermination(drainTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.shutdownNow();
+        } finally {
+            callExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE;
+    }
+}
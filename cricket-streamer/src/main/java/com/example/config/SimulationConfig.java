@@ -0,0 +1,40 @@
+package com.example.config;
+
+import com.example.engine.MatchSimulator;
+import com.example.engine.OutcomeModel;
+import com.example.engine.TableOutcomeModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Configuration
+public class SimulationConfig {
+
+    @Value("${cricket.simulation.parallelism:0}")
+    private int parallelism;
+
+    /** Spring resource location of a {@link TableOutcomeModel} file; empty uses the built-in model. */
+    @Value("${cricket.engine.outcome-model:}")
+    private String outcomeModelLocation;
+
+    @Bean
+    public OutcomeModel outcomeModel(ResourceLoader resourceLoader) throws IOException {
+        if (outcomeModelLocation.isBlank()) {
+            return OutcomeModel.standard();
+        }
+        Resource resource = resourceLoader.getResource(outcomeModelLocation);
+        try (InputStream in = resource.getInputStream()) {
+            return TableOutcomeModel.load(in);
+        }
+    }
+
+    @Bean
+    public MatchSimulator matchSimulator(OutcomeModel outcomeModel) {
+        return new MatchSimulator(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), outcomeModel);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.config;
+
+import com.example.web.ScoreWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final ScoreWebSocketHandler scoreHandler;
+
+    /** Origins allowed besides the server's own; empty by default, {@code *} allows any. */
+    @Value("${cricket.web.allowed-origins:}")
+    private String[] allowedOrigins;
+
+    public WebSocketConfig(ScoreWebSocketHandler scoreHandler) {
+        this.scoreHandler = scoreHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(scoreHandler, "/matches/ws").setAllowedOrigins(allowedOrigins);
+    }
+}
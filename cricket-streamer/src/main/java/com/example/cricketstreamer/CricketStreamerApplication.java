@@ -3,7 +3,7 @@ package com.example.cricketstreamer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication(scanBasePackages = {"com.example.cricketstreamer", "com.example.config", "com.example.grpc"})
+@SpringBootApplication(scanBasePackages = {"com.example.cricketstreamer", "com.example.config", "com.example.grpc", "com.example.match", "com.example.web"})
 public class CricketStreamerApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,36 @@
+package com.example.engine;
+
+/**
+ * Play-by-play text shared by the server and by clients that rebuild updates from the compact
+ * stream, so both sides always render the same words.
+ */
+public final class Commentary {
+
+    private static final String[] RUNS = {"Dot ball", "1 run", "2 runs", "3 runs", "FOUR!", "5 runs", "SIX!"};
+
+    private Commentary() {
+    }
+
+    /**
+     * @param outcome runs off the ball, {@link CricketEngine#WICKET}, {@link CricketEngine#WIDE}
+     *                or {@link CricketEngine#NO_BALL}
+     */
+    public static String ball(int outcome) {
+        return switch (outcome) {
+            case CricketEngine.WICKET -> "WICKET!";
+            case CricketEngine.WIDE -> "Wide";
+            case CricketEngine.NO_BALL -> "No ball";
+            default -> outcome < RUNS.length ? RUNS[outcome] : outcome + " runs";
+        };
+    }
+
+    public static String inningsEnd(int innings, int total, int wickets, int target) {
+        if (innings == 1) {
+            return "End of innings 1: " + total + "/" + wickets + ". Target: " + (total + 1);
+        } else if (total >= target) {
+            return "Innings 2: chase complete. Won by " + (CricketEngine.MAX_WICKETS - wickets) + " wickets";
+        } else {
+            return "Innings 2: fell short. Needed " + (target - total) + " more";
+        }
+    }
+}
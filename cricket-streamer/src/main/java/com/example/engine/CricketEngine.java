@@ -1,40 +1,160 @@
 package com.example.engine;
 
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class CricketEngine {
-    private final Random random = new Random();
+    private final RandomGenerator random;
+    private final OutcomeModel model;
+    private int innings = 1;
     private int total = 0;
     private int wickets = 0;
+    private int legalBalls = 0;
+    private int extrasThisOver = 0;
 
     public static final int OVERS = 6;
     public static final int BALLS = 6;
+    public static final int MAX_WICKETS = 10;
 
-    public record Ball(int over, int ball, int runs, int total, int wickets, String comment) {}
+    /**
+     * Wides and no-balls allowed in one over. Once an over has had this many, a further extra
+     * drawn from the model is bowled as a dot ball, so an innings never has more than
+     * {@link #MAX_DELIVERIES} deliveries.
+     */
+    public static final int MAX_EXTRAS_PER_OVER = 8;
+
+    /** The most deliveries an innings can have, legal balls and extras together. */
+    public static final int MAX_DELIVERIES = OVERS * (BALLS + MAX_EXTRAS_PER_OVER);
+
+    /** Returned by {@link #bowl()} when the delivery takes a wicket. */
+    public static final int WICKET = -1;
+
+    /** Returned by {@link #bowl()} for a wide: one run to the total, and the ball is bowled again. */
+    public static final int WIDE = -2;
+
+    /** Returned by {@link #bowl()} for a no-ball: one run to the total, and the ball is bowled again. */
+    public static final int NO_BALL = -3;
+
+    public record Ball(int over, int ball, int runs, int total, int wickets, String comment, int outcome) {
+
+        /** Whether the delivery counts towards the over. */
+        public boolean legal() {
+            return isLegal(outcome);
+        }
+    }
+
+    /** An engine with its own unshared generator, so bowling never contends on a seed. */
+    public CricketEngine() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * @param random source of outcomes; it is only used by this engine, so a non thread-safe
+     *               generator such as {@link SplittableRandom} is fine
+     */
+    public CricketEngine(RandomGenerator random) {
+        this(random, OutcomeModel.standard());
+    }
+
+    public CricketEngine(RandomGenerator random, OutcomeModel model) {
+        this.random = random;
+        this.model = model;
+    }
+
+    public static boolean isLegal(int outcome) {
+        return outcome != WIDE && outcome != NO_BALL;
+    }
+
+    /** Runs an outcome adds to the batting side's total. */
+    public static int runsOf(int outcome) {
+        return switch (outcome) {
+            case WICKET -> 0;
+            case WIDE, NO_BALL -> 1;
+            default -> outcome;
+        };
+    }
 
     public Ball next(int over, int ball) {
-        int p = random.nextInt(100);
-        int runs = 0;
-        String comment;
+        int outcome = bowl();
+        return new Ball(over, ball, runsOf(outcome), total, wickets, Commentary.ball(outcome), outcome);
+    }
 
-        if (p < 3) {
+    /**
+     * Bowls one delivery and updates the running score without allocating anything. Returns the
+     * runs scored off the bat, {@link #WICKET}, {@link #WIDE} or {@link #NO_BALL}.
+     */
+    public int bowl() {
+        int outcome = model.draw(random, innings, legalBalls / BALLS + 1);
+        if (!isLegal(outcome) && ++extrasThisOver > MAX_EXTRAS_PER_OVER) {
+            outcome = 0;
+        }
+        if (outcome == WICKET) {
             wickets++;
-            comment = "WICKET!";
-        } else if (p < 38) {
-            comment = "Dot ball";
-        } else if (p < 63) {
-            runs = 1; comment = "1 run";
-        } else if (p < 78) {
-            runs = 2; comment = "2 runs";
-        } else if (p < 85) {
-            runs = 3; comment = "3 runs";
-        } else if (p < 93) {
-            runs = 4; comment = "FOUR!";
         } else {
-            runs = 6; comment = "SIX!";
+            total += runsOf(outcome);
+        }
+        if (isLegal(outcome) && ++legalBalls % BALLS == 0) {
+            extrasThisOver = 0;
+        }
+        return outcome;
+    }
+
+    /**
+     * Plays a whole innings from the current score, stopping early when the side is all out or
+     * reaches {@code target} (0 for a first innings).
+     */
+    public void playInnings(int target) {
+        while (legalBalls < OVERS * BALLS) {
+            bowl();
+            if (wickets >= MAX_WICKETS || (target > 0 && total >= target)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #playInnings(int)} but records every delivery, packed, into {@code buffer},
+     * which is cleared first. An {@link InningsBuffer} always has room for
+     * {@link #MAX_DELIVERIES}, so nothing is allocated and one buffer can be reused for any
+     * number of innings.
+     */
+    public void playInnings(InningsBuffer buffer, int target) {
+        buffer.clear();
+        while (legalBalls < OVERS * BALLS) {
+            int over = legalBalls / BALLS + 1;
+            int ball = legalBalls % BALLS + 1;
+            int outcome = bowl();
+            buffer.add(InningsBuffer.pack(over, ball, outcome, total, wickets));
+            if (wickets >= MAX_WICKETS || (target > 0 && total >= target)) {
+                return;
+            }
         }
+    }
+
+    public int total() {
+        return total;
+    }
+
+    public int wickets() {
+        return wickets;
+    }
+
+    /** Legal deliveries bowled so far in this innings. */
+    public int legalBalls() {
+        return legalBalls;
+    }
+
+    /** Clears the score so the engine can be reused for another first innings. */
+    public void reset() {
+        reset(1);
+    }
 
-        total += runs;
-        return new Ball(over, ball, runs, total, wickets, comment);
+    /** Clears the score so the engine can be reused for the given innings (1 or 2). */
+    public void reset(int innings) {
+        this.innings = innings;
+        total = 0;
+        wickets = 0;
+        legalBalls = 0;
+        extrasThisOver = 0;
     }
 }
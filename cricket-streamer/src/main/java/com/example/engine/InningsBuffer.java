@@ -0,0 +1,99 @@
+package com.example.engine;
+
+/**
+ * Reusable, allocation-free record of one innings, sized up front for the longest innings the
+ * engine can bowl ({@link CricketEngine#MAX_DELIVERIES}). Each delivery is packed into a single
+ * {@code int}; use the static accessors to read it back.
+ *
+ * <pre>
+ *  bits  0-3   runs added to the total by the ball
+ *  bit   4     wicket
+ *  bits  5-8   ball in the over (1-based)
+ *  bits  9-13  over (1-based)
+ *  bits 14-17  wickets after the ball
+ *  bits 18-29  total after the ball
+ *  bits 30-31  extra: 0 none, 1 wide, 2 no-ball
+ * </pre>
+ *
+ * For a wide or no-ball the over and ball are those of the delivery that has to be bowled again.
+ */
+public final class InningsBuffer {
+
+    private final int[] balls = new int[CricketEngine.MAX_DELIVERIES];
+    private int size;
+
+    public static int pack(int over, int ball, int outcome, int total, int wickets) {
+        int runs = CricketEngine.runsOf(outcome);
+        int wicket = outcome == CricketEngine.WICKET ? 1 : 0;
+        int extra = outcome == CricketEngine.WIDE ? 1 : outcome == CricketEngine.NO_BALL ? 2 : 0;
+        return runs | wicket << 4 | ball << 5 | over << 9 | wickets << 14 | total << 18 | extra << 30;
+    }
+
+    /** The outcome the delivery was packed from, as returned by {@link CricketEngine#bowl()}. */
+    public static int outcome(int packed) {
+        if (isWicket(packed)) {
+            return CricketEngine.WICKET;
+        }
+        return switch (packed >>> 30) {
+            case 1 -> CricketEngine.WIDE;
+            case 2 -> CricketEngine.NO_BALL;
+            default -> runs(packed);
+        };
+    }
+
+    public static int runs(int packed) {
+        return packed & 0xF;
+    }
+
+    public static boolean isWicket(int packed) {
+        return (packed & 0x10) != 0;
+    }
+
+    public static int ball(int packed) {
+        return packed >>> 5 & 0xF;
+    }
+
+    public static int over(int packed) {
+        return packed >>> 9 & 0x1F;
+    }
+
+    public static int wickets(int packed) {
+        return packed >>> 14 & 0xF;
+    }
+
+    public static int total(int packed) {
+        return packed >>> 18 & 0xFFF;
+    }
+
+    void add(int packed) {
+        balls[size++] = packed;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return balls[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return balls.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /** Total after the last ball, or 0 for an empty innings. */
+    public int finalTotal() {
+        return size == 0 ? 0 : total(balls[size - 1]);
+    }
+
+    public int finalWickets() {
+        return size == 0 ? 0 : wickets(balls[size - 1]);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.engine;
+
+import java.util.Arrays;
+
+/**
+ * Running aggregates for one innings, updated in constant time per delivery so that rates,
+ * projections and partnerships never have to be recomputed from the ball history.
+ */
+public final class InningsStats {
+
+    private static final int INNINGS_BALLS = CricketEngine.OVERS * CricketEngine.BALLS;
+
+    private final int[] runsPerOver = new int[CricketEngine.OVERS];
+    private int target;
+    private int runs;
+    private int legalBalls;
+    private int partnershipRuns;
+    private int partnershipBalls;
+    private int oversStarted;
+
+    /** Starts a new innings; {@code target} is 0 for a first innings. */
+    public void reset(int target) {
+        this.target = target;
+        runs = 0;
+        legalBalls = 0;
+        partnershipRuns = 0;
+        partnershipBalls = 0;
+        oversStarted = 0;
+        Arrays.fill(runsPerOver, 0);
+    }
+
+    /** @param outcome as returned by {@link CricketEngine#bowl()} */
+    public void record(int outcome) {
+        int added = CricketEngine.runsOf(outcome);
+        int over = Math.min(legalBalls / CricketEngine.BALLS, runsPerOver.length - 1);
+        runsPerOver[over] += added;
+        oversStarted = Math.max(oversStarted, over + 1);
+        runs += added;
+        partnershipRuns += added;
+        if (CricketEngine.isLegal(outcome)) {
+            legalBalls++;
+            partnershipBalls++;
+        }
+        if (outcome == CricketEngine.WICKET) {
+            partnershipRuns = 0;
+            partnershipBalls = 0;
+        }
+    }
+
+    /** Runs per over so far, or 0 before the first legal ball. */
+    public double currentRunRate() {
+        return legalBalls == 0 ? 0 : runs * (double) CricketEngine.BALLS / legalBalls;
+    }
+
+    /** Runs per over the chasing side still needs, or 0 in a first innings or once it is decided. */
+    public double requiredRunRate() {
+        int ballsLeft = ballsRemaining();
+        if (target == 0 || ballsLeft == 0 || runs >= target) {
+            return 0;
+        }
+        return (target - runs) * (double) CricketEngine.BALLS / ballsLeft;
+    }
+
+    /** Final total if the innings carries on at the current run rate. */
+    public int projectedScore() {
+        if (legalBalls == 0) {
+            return runs;
+        }
+        return runs + (int) Math.round((double) runs * ballsRemaining() / legalBalls);
+    }
+
+    public int runsRequired() {
+        return target == 0 ? 0 : Math.max(target - runs, 0);
+    }
+
+    public int ballsRemaining() {
+        return INNINGS_BALLS - Math.min(legalBalls, INNINGS_BALLS);
+    }
+
+    public int partnershipRuns() {
+        return partnershipRuns;
+    }
+
+    public int partnershipBalls() {
+        return partnershipBalls;
+    }
+
+    /** Overs with at least one delivery bowled, including the one in progress. */
+    public int oversStarted() {
+        return oversStarted;
+    }
+
+    /** @param over 1-based */
+    public int runsInOver(int over) {
+        return runsPerOver[over - 1];
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.engine;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays complete two-innings matches as fast as the hardware allows, to estimate outcome
+ * distributions. Work is split across a fork/join pool and every task gets its own
+ * {@link SplittableRandom} derived from the seed, so a given seed always yields the same
+ * result regardless of how many cores run it.
+ */
+public class MatchSimulator implements AutoCloseable {
+
+    /** Matches a single task plays sequentially before it stops splitting. */
+    private static final long BATCH = 4_096;
+
+    private final ForkJoinPool pool;
+    private final OutcomeModel model;
+
+    public MatchSimulator(int parallelism) {
+        this(parallelism, OutcomeModel.standard());
+    }
+
+    public MatchSimulator(int parallelism, OutcomeModel model) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.model = model;
+    }
+
+    public SimulationResult simulate(long count, long seed) {
+        return pool.invoke(new SimulationTask(count, new SplittableRandom(seed), model));
+    }
+
+    public CompletableFuture<SimulationResult> simulateAsync(long count, long seed) {
+        return CompletableFuture.supplyAsync(
+                () -> new SimulationTask(count, new SplittableRandom(seed), model).invoke(), pool);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static final class SimulationTask extends RecursiveTask<SimulationResult> {
+        private final long count;
+        private final SplittableRandom random;
+        private final OutcomeModel model;
+
+        SimulationTask(long count, SplittableRandom random, OutcomeModel model) {
+            this.count = count;
+            this.random = random;
+            this.model = model;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (count <= BATCH) {
+                return playBatch();
+            }
+            long half = count / 2;
+            SimulationTask left = new SimulationTask(half, random.split(), model);
+            SimulationTask right = new SimulationTask(count - half, random, model);
+            left.fork();
+            SimulationResult result = right.compute();
+            return result.merge(left.join());
+        }
+
+        private SimulationResult playBatch() {
+            SimulationResult result = new SimulationResult();
+            CricketEngine engine = new CricketEngine(random, model);
+            for (long i = 0; i < count; i++) {
+                engine.reset(1);
+                engine.playInnings(0);
+                int firstTotal = engine.total();
+                int firstWickets = engine.wickets();
+
+                engine.reset(2);
+                engine.playInnings(firstTotal + 1);
+                result.record(firstTotal, firstWickets, engine.total(), engine.wickets());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.engine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Probability of each possible delivery. {@link CricketEngine} asks its model for every ball, so
+ * the distribution can depend on which innings it is and how far into the innings the ball falls.
+ *
+ * <p>Implementations are shared between engines on different threads, so they must be immutable,
+ * and should not allocate: the engine's batch path bowls billions of balls.
+ */
+public interface OutcomeModel {
+
+    /**
+     * Draws one delivery.
+     *
+     * @param innings 1 or 2
+     * @param over    1-based over the ball is bowled in
+     * @return runs off the bat (0-6), {@link CricketEngine#WICKET}, {@link CricketEngine#WIDE}
+     *         or {@link CricketEngine#NO_BALL}
+     */
+    int draw(RandomGenerator random, int innings, int over);
+
+    /**
+     * Identifies the distribution, so a match replayed from its seed can check it is bowled by
+     * the same model as before. Models built from configuration must include it; the default
+     * only tells implementation classes apart.
+     */
+    default String id() {
+        return getClass().getName();
+    }
+
+    /** The built-in distribution: the same for every ball, and no extras. */
+    static OutcomeModel standard() {
+        return StandardOutcomeModel.INSTANCE;
+    }
+}
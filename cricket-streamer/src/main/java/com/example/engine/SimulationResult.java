@@ -0,0 +1,91 @@
+package com.example.engine;
+
+/**
+ * Aggregate outcome of a batch of simulated matches. Histogram arrays are indexed by the value
+ * being counted, e.g. {@code firstInningsTotals[52]} is the number of matches whose first
+ * innings ended on 52. Totals above {@link #MAX_TOTAL}, only possible with extras, are counted
+ * in the last bucket.
+ */
+public final class SimulationResult {
+
+    /** Every legal delivery is a six and nobody gets out. */
+    public static final int MAX_TOTAL = CricketEngine.OVERS * CricketEngine.BALLS * 6;
+
+    private long matches;
+    private long battingFirstWins;
+    private long chasingWins;
+    private long ties;
+    private final long[] firstInningsTotals = new long[MAX_TOTAL + 1];
+    private final long[] secondInningsTotals = new long[MAX_TOTAL + 1];
+    private final long[] firstInningsWickets = new long[CricketEngine.MAX_WICKETS + 1];
+    private final long[] secondInningsWickets = new long[CricketEngine.MAX_WICKETS + 1];
+
+    void record(int firstTotal, int firstWickets, int secondTotal, int secondWickets) {
+        matches++;
+        firstInningsTotals[Math.min(firstTotal, MAX_TOTAL)]++;
+        firstInningsWickets[firstWickets]++;
+        secondInningsTotals[Math.min(secondTotal, MAX_TOTAL)]++;
+        secondInningsWickets[secondWickets]++;
+        if (secondTotal > firstTotal) {
+            chasingWins++;
+        } else if (secondTotal == firstTotal) {
+            ties++;
+        } else {
+            battingFirstWins++;
+        }
+    }
+
+    SimulationResult merge(SimulationResult other) {
+        matches += other.matches;
+        battingFirstWins += other.battingFirstWins;
+        chasingWins += other.chasingWins;
+        ties += other.ties;
+        add(firstInningsTotals, other.firstInningsTotals);
+        add(secondInningsTotals, other.secondInningsTotals);
+        add(firstInningsWickets, other.firstInningsWickets);
+        add(secondInningsWickets, other.secondInningsWickets);
+        return this;
+    }
+
+    public long matches() {
+        return matches;
+    }
+
+    public long battingFirstWins() {
+        return battingFirstWins;
+    }
+
+    public long chasingWins() {
+        return chasingWins;
+    }
+
+    public long ties() {
+        return ties;
+    }
+
+    public double chasingWinProbability() {
+        return matches == 0 ? 0 : (double) chasingWins / matches;
+    }
+
+    public long[] firstInningsTotals() {
+        return firstInningsTotals.clone();
+    }
+
+    public long[] secondInningsTotals() {
+        return secondInningsTotals.clone();
+    }
+
+    public long[] firstInningsWickets() {
+        return firstInningsWickets.clone();
+    }
+
+    public long[] secondInningsWickets() {
+        return secondInningsWickets.clone();
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.engine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Outcome for every value of a 0-99 roll, so a delivery is one array lookup instead of a chain
+ * of comparisons: 3% wicket, 35% dot, 25% single, 15% two, 7% three, 8% four, 7% six.
+ */
+final class StandardOutcomeModel implements OutcomeModel {
+
+    static final StandardOutcomeModel INSTANCE = new StandardOutcomeModel();
+
+    private static final byte[] OUTCOMES = new byte[100];
+
+    static {
+        fill(0, 3, CricketEngine.WICKET);
+        fill(3, 38, 0);
+        fill(38, 63, 1);
+        fill(63, 78, 2);
+        fill(78, 85, 3);
+        fill(85, 93, 4);
+        fill(93, 100, 6);
+    }
+
+    private StandardOutcomeModel() {
+    }
+
+    @Override
+    public String id() {
+        return "standard";
+    }
+
+    @Override
+    public int draw(RandomGenerator random, int innings, int over) {
+        return OUTCOMES[random.nextInt(100)];
+    }
+
+    private static void fill(int from, int to, int outcome) {
+        for (int p = from; p < to; p++) {
+            OUTCOMES[p] = (byte) outcome;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.random.RandomGenerator;
+
+/**
+ * An {@link OutcomeModel} read from a properties file, with separate weights per innings and per
+ * phase of the innings. Every (innings, over) pair is resolved to an {@link AliasSampler} up
+ * front, so drawing a ball is an array lookup plus one alias draw.
+ *
+ * <pre>
+ * # Overs in each phase, checked in order. Without this line the whole innings is one phase.
+ * phases=powerplay:1-2, middle:3-5, death:6
+ *
+ * # Weights, in any unit. Outcomes: dot, 1-6, wicket, wide, noball. Missing outcomes weigh 0.
+ * default=dot:35, 1:25, 2:15, 3:7, 4:8, 6:7, wicket:3
+ * death=dot:25, 1:25, 2:15, 4:12, 6:12, wicket:6, wide:3, noball:2
+ * innings2.death=dot:22, 1:25, 2:15, 4:13, 6:14, wicket:8, wide:2, noball:1
+ * </pre>
+ *
+ * A ball in over {@code o} of innings {@code i}, where {@code o} falls in phase {@code p}, uses
+ * the first of {@code innings<i>.<p>}, {@code <p>}, {@code innings<i>} and {@code default} that
+ * is present.
+ */
+public final class TableOutcomeModel implements OutcomeModel {
+
+    private static final String[] NAMES = {"dot", "1", "2", "3", "4", "5", "6", "wicket", "wide", "noball"};
+    private static final int[] OUTCOMES = {0, 1, 2, 3, 4, 5, 6, CricketEngine.WICKET, CricketEngine.WIDE, CricketEngine.NO_BALL};
+
+    private static final int INNINGS = 2;
+
+    /** Indexed by innings - 1, then over - 1. */
+    private final AliasSampler[][] samplers;
+    private final String id;
+
+    private TableOutcomeModel(AliasSampler[][] samplers, String id) {
+        this.samplers = samplers;
+        this.id = id;
+    }
+
+    public static TableOutcomeModel load(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return load(in);
+        }
+    }
+
+    public static TableOutcomeModel load(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return from(properties);
+    }
+
+    /** @throws IllegalArgumentException if the table is malformed or leaves a ball without weights */
+    public static TableOutcomeModel from(Properties properties) {
+        String[] phaseOfOver = phases(properties.getProperty("phases"));
+        Map<String, AliasSampler> rows = new HashMap<>();
+        AliasSampler[][] samplers = new AliasSampler[INNINGS][CricketEngine.OVERS];
+        for (int innings = 1; innings <= INNINGS; innings++) {
+            for (int over = 1; over <= CricketEngine.OVERS; over++) {
+                String phase = phaseOfOver[over - 1];
+                String key = firstPresent(properties,
+                        phase == null ? null : "innings" + innings + "." + phase,
+                        phase,
+                        "innings" + innings,
+                        "default");
+                if (key == null) {
+                    throw new IllegalArgumentException("No weights for innings " + innings + ", over " + over
+                            + (phase == null ? "" : " (phase " + phase + ")"));
+                }
+                samplers[innings - 1][over - 1] = rows.computeIfAbsent(key, k -> row(k, properties.getProperty(k)));
+            }
+        }
+        return new TableOutcomeModel(samplers, "table:" + digest(properties));
+    }
+
+    /** {@code table:} and a SHA-256 of the table's entries, so reordering or comments don't change it. */
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public int draw(RandomGenerator random, int innings, int over) {
+        int o = Math.min(Math.max(over, 1), CricketEngine.OVERS);
+        return OUTCOMES[samplers[innings - 1][o - 1].sample(random)];
+    }
+
+    private static String[] phases(String spec) {
+        String[] phaseOfOver = new String[CricketEngine.OVERS];
+        if (spec == null || spec.isBlank()) {
+            return phaseOfOver;
+        }
+        for (String entry : spec.split(",")) {
+            String[] nameAndOvers = entry.trim().split(":");
+            if (nameAndOvers.length != 2) {
+                throw new IllegalArgumentException("Phase must look like name:first-last, got '" + entry.trim() + "'");
+            }
+            String[] range = nameAndOvers[1].trim().split("-");
+            int first = parseOver(range[0]);
+            int last = range.length > 1 ? parseOver(range[1]) : first;
+            for (int over = first; over <= last; over++) {
+                if (phaseOfOver[over - 1] == null) {
+                    phaseOfOver[over - 1] = nameAndOvers[0].trim();
+                }
+            }
+        }
+        return phaseOfOver;
+    }
+
+    private static int parseOver(String value) {
+        int over = Integer.parseInt(value.trim());
+        if (over < 1 || over > CricketEngine.OVERS) {
+            throw new IllegalArgumentException("Over must be between 1 and " + CricketEngine.OVERS + ", got " + over);
+        }
+        return over;
+    }
+
+    private static AliasSampler row(String key, String spec) {
+        double[] weights = new double[NAMES.length];
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] outcomeAndWeight = entry.trim().split(":");
+            int index = indexOf(outcomeAndWeight[0].trim());
+            if (index < 0 || outcomeAndWeight.length != 2) {
+                throw new IllegalArgumentException(key + ": expected outcome:weight with outcome one of "
+                        + String.join(", ", NAMES) + ", got '" + entry.trim() + "'");
+            }
+            weights[index] = Double.parseDouble(outcomeAndWeight[1].trim());
+        }
+
+        boolean legalDelivery = false;
+        for (int i = 0; i < weights.length; i++) {
+            legalDelivery |= weights[i] > 0 && CricketEngine.isLegal(OUTCOMES[i]);
+        }
+        if (!legalDelivery) {
+            throw new IllegalArgumentException(key + ": an innings needs some weight on legal deliveries");
+        }
+        try {
+            return new AliasSampler(weights);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(key + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String digest(Properties properties) {
+        StringBuilder canonical = new StringBuilder();
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            canonical.append(key).append('=').append(properties.getProperty(key).replace(" ", "")).append('\n');
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String firstPresent(Properties properties, String... keys) {
+        for (String key : keys) {
+            if (key != null && properties.containsKey(key)) {
+                return key;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.grpc;
+
+import com.example.engine.Commentary;
+import com.example.engine.CricketEngine;
+
+import java.util.Iterator;
+
+/**
+ * Converts between {@link ScoreUpdate} and the delta-encoded {@link CompactScoreUpdate} sent by
+ * {@code StreamScoreCompact}. Clients wrap the compact stream with {@link #decode(Iterator)} (or
+ * feed a {@link Decoder} from an async stub) to get back the same updates {@code StreamScore}
+ * would have sent.
+ */
+public final class CompactScoreCodec {
+
+    private CompactScoreCodec() {
+    }
+
+    /**
+     * Encodes {@code update}. With a {@code previous} update every number is sent as the
+     * difference from it, so unchanged fields cost nothing on the wire; without one the frame is
+     * a keyframe carrying absolute values.
+     */
+    public static CompactScoreUpdate encode(long sequence, ScoreUpdate update, boolean wicket, ScoreUpdate previous) {
+        ScoreUpdate base = previous == null ? ScoreUpdate.getDefaultInstance() : previous;
+        boolean inningsEnd = "INNINGS_END".equals(update.getStatus());
+
+        CompactScoreUpdate.Builder compact = CompactScoreUpdate.newBuilder()
+                .setSequence(sequence)
+                .setKeyframe(previous == null)
+                .setStatus(inningsEnd ? MatchStatus.STATUS_INNINGS_END : MatchStatus.STATUS_PLAY)
+                .setOutcome(inningsEnd ? Outcome.OUTCOME_NONE : outcomeOf(update, wicket))
+                .setInnings(update.getInnings() - base.getInnings())
+                .setTarget(update.getTarget() - base.getTarget())
+                .setOver(update.getOver() - base.getOver())
+                .setBall(update.getBall() - base.getBall())
+                .setTotal(update.getTotal() - base.getTotal())
+                .setWickets(update.getWickets() - base.getWickets());
+        if (compact.getOutcome() == Outcome.OUTCOME_RUNS) {
+            compact.setRuns(update.getRuns());
+        }
+        return compact.build();
+    }
+
+    /** Rebuilds full updates from a blocking {@code StreamScoreCompact} iterator. */
+    public static Iterator<ScoreUpdate> decode(Iterator<CompactScoreUpdate> compact) {
+        Decoder decoder = new Decoder();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return compact.hasNext();
+            }
+
+            @Override
+            public ScoreUpdate next() {
+                return decoder.decode(compact.next());
+            }
+        };
+    }
+
+    private static Outcome outcomeOf(ScoreUpdate update, boolean wicket) {
+        if (update.getOutcome() != Outcome.OUTCOME_NONE) {
+            return update.getOutcome();
+        }
+        if (wicket) {
+            return Outcome.OUTCOME_WICKET;
+        }
+        return switch (update.getRuns()) {
+            case 0 -> Outcome.OUTCOME_DOT;
+            case 4 -> Outcome.OUTCOME_FOUR;
+            case 6 -> Outcome.OUTCOME_SIX;
+            default -> Outcome.OUTCOME_RUNS;
+        };
+    }
+
+    /** Stateful decoder for one compact stream. Not thread-safe. */
+    public static final class Decoder {
+
+        private ScoreUpdate last = ScoreUpdate.getDefaultInstance();
+        private long lastSequence = -1;
+
+        public ScoreUpdate decode(CompactScoreUpdate compact) {
+            if (!compact.getKeyframe() && compact.getSequence() != lastSequence + 1) {
+                throw new IllegalStateException("Delta frame " + compact.getSequence()
+                        + " does not follow frame " + lastSequence);
+            }
+            ScoreUpdate base = compact.getKeyframe() ? ScoreUpdate.getDefaultInstance() : last;
+
+            int innings = base.getInnings() + compact.getInnings();
+            int target = base.getTarget() + compact.getTarget();
+            int total = base.getTotal() + compact.getTotal();
+            int wickets = base.getWickets() + compact.getWickets();
+
+            ScoreUpdate.Builder update = ScoreUpdate.newBuilder()
+                    .setSequence(compact.getSequence())
+                    .setInnings(innings)
+                    .setTarget(target)
+                    .setOver(base.getOver() + compact.getOver())
+                    .setBall(base.getBall() + compact.getBall())
+                    .setTotal(total)
+                    .setWickets(wickets);
+
+            if (compact.getStatus() == MatchStatus.STATUS_INNINGS_END) {
+                update.setRuns(0)
+                        .setComment(Commentary.inningsEnd(innings, total, wickets, target))
+                        .setStatus("INNINGS_END");
+            } else {
+                int outcome = switch (compact.getOutcome()) {
+                    case OUTCOME_WICKET -> CricketEngine.WICKET;
+                    case OUTCOME_WIDE -> CricketEngine.WIDE;
+                    case OUTCOME_NO_BALL -> CricketEngine.NO_BALL;
+                    case OUTCOME_FOUR -> 4;
+                    case OUTCOME_SIX -> 6;
+                    case OUTCOME_RUNS -> compact.getRuns();
+                    default -> 0;
+                };
+                update.setRuns(CricketEngine.runsOf(outcome))
+                        .setComment(Commentary.ball(outcome))
+                        .setStatus("PLAY")
+                        .setOutcome(compact.getOutcome());
+            }
+
+            last = update.build();
+            lastSequence = compact.getSequence();
+            return last;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.grpc;
+
+import io.grpc.Codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Raw-zlib message compression at {@link Deflater#BEST_SPEED}. Score updates are small and
+ * repetitive, so the fastest level saves nearly as many bytes as gzip's default while costing
+ * noticeably less CPU on a node serving many viewers. Registered as {@code "deflate"}; clients
+ * that do not advertise it get identity or gzip instead.
+ */
+public final class DeflateCodec implements Codec {
+
+    public static final DeflateCodec INSTANCE = new DeflateCodec();
+
+    private DeflateCodec() {
+    }
+
+    @Override
+    public String getMessageEncoding() {
+        return "deflate";
+    }
+
+    @Override
+    public OutputStream compress(OutputStream os) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        return new DeflaterOutputStream(os, deflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decompress(InputStream is) throws IOException {
+        Inflater inflater = new Inflater();
+        return new InflaterInputStream(is, inflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
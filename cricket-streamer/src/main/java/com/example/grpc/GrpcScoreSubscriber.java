@@ -0,0 +1,312 @@
+package com.example.grpc;
+
+import com.example.match.LiveMatch;
+import com.example.match.MatchSubscriber;
+import com.example.match.MatchSuspendedException;
+import com.example.match.ScoreFrame;
+import com.google.protobuf.CodedOutputStream;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Bridges a {@code StreamScore} call to the match it is watching. Frames are written straight
+ * through while the transport is ready; otherwise they are parked in a small per-call buffer and
+ * the subscriber's {@link SlowConsumerPolicy} decides what to keep, so a slow client can no
+ * longer make gRPC buffer the whole match in heap.
+ *
+ * <p>Replayed frames are exempt from the policy: they are written back to back as fast as the
+ * transport is ready, and live frames that arrive meanwhile wait behind them.
+ */
+final class GrpcScoreSubscriber implements MatchSubscriber {
+
+    /** How frames are written to this call. */
+    enum Encoding {
+        /** {@code ScoreUpdate}, as sent by {@code StreamScore}. */
+        FULL,
+        /** {@code CompactScoreUpdate}, as sent by {@code StreamScoreCompact}. */
+        COMPACT,
+        /** {@code ScoreBatch}, as sent by {@code StreamScoreBatched}. */
+        BATCHED
+    }
+
+    /**
+     * @param keyframeInterval for {@link Encoding#COMPACT}, frames between forced keyframes
+     * @param maxBatch         for {@link Encoding#BATCHED}, most updates coalesced into one message
+     * @param stats            whether full updates carry their {@code MatchStats}; the compact
+     *                         encoding never does
+     */
+    record Options(Encoding encoding, SlowConsumerPolicy policy, int bufferLimit, int keyframeInterval, int maxBatch,
+                   boolean stats) {
+    }
+
+    /** Thread CPU time is read around one write in this many. */
+    private static final int CPU_SAMPLE_MASK = 0xF;
+
+    private static final int BATCH_UPDATES_FIELD = 1;
+
+    private final ServerCallStreamObserver<byte[]> call;
+    private final Options options;
+    private final ScoreStreamMetrics metrics;
+
+    // guarded by this
+    private final ArrayDeque<ScoreFrame> replay = new ArrayDeque<>();
+    private final ArrayDeque<ScoreFrame> pending = new ArrayDeque<>();
+    private boolean completeWhenDrained;
+    private boolean closed;
+    private long lastSentSequence = -1;
+    private int sinceKeyframe;
+    private int writes;
+
+    private volatile LiveMatch match;
+    private volatile boolean cancelled;
+
+    GrpcScoreSubscriber(ServerCallStreamObserver<byte[]> call, Options options, ScoreStreamMetrics metrics) {
+        this.call = call;
+        this.options = options;
+        this.metrics = metrics;
+        call.setOnCancelHandler(this::cancel);
+        call.setOnReadyHandler(this::onReady);
+    }
+
+    void attach(LiveMatch match) {
+        if (match == null) {
+            return; // served from a finished match's log
+        }
+        this.match = match;
+        if (cancelled) {
+            match.unsubscribe(this);
+        }
+    }
+
+    @Override
+    public synchronized void onFrame(ScoreFrame frame) {
+        if (closed) {
+            return;
+        }
+        if (replay.isEmpty() && pending.isEmpty() && call.isReady()) {
+            send(frame);
+            return;
+        }
+
+        switch (options.policy()) {
+            case DROP_MINOR -> {
+                dropWhere(f -> !f.isMilestone() && !f.isInningsEnd(), false);
+                pending.addLast(frame);
+                if (pending.size() > options.bufferLimit()) {
+                    dropWhere(f -> !f.isInningsEnd(), true);
+                }
+            }
+            case DISCONNECT -> {
+                pending.addLast(frame);
+                if (pending.size() > options.bufferLimit()) {
+                    disconnect();
+                }
+            }
+            default -> {
+                ScoreFrame last = pending.peekLast();
+                if (last != null && !last.isInningsEnd() && !frame.isInningsEnd()) {
+                    pending.pollLast();
+                    metrics.conflated();
+                }
+                pending.addLast(frame);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onReplay(List<ScoreFrame> frames) {
+        if (closed) {
+            return;
+        }
+        replay.addAll(frames);
+        metrics.replayed(frames.size());
+        drain();
+    }
+
+    @Override
+    public synchronized boolean isReady() {
+        return closed || (replay.isEmpty() && pending.isEmpty() && call.isReady());
+    }
+
+    @Override
+    public synchronized void onMatchEnd() {
+        if (closed) {
+            return;
+        }
+        if (replay.isEmpty() && pending.isEmpty()) {
+            closed = true;
+            call.onCompleted();
+        } else {
+            completeWhenDrained = true;
+        }
+    }
+
+    @Override
+    public synchronized void onMatchError(Throwable t) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        replay.clear();
+        pending.clear();
+        if (t instanceof MatchSuspendedException) {
+            call.onError(Status.UNAVAILABLE
+                    .withDescription(t.getMessage() + "; reconnect with from_sequence to resume")
+                    .asRuntimeException());
+            return;
+        }
+        call.onError(Status.INTERNAL.withDescription("Match simulation failed").withCause(t).asRuntimeException());
+    }
+
+    /** Writes what is queued, then lets a match parked on this viewer carry on. */
+    private void onReady() {
+        drain();
+        LiveMatch current = match;
+        if (current != null) {
+            current.wake();
+        }
+    }
+
+    private synchronized void drain() {
+        while (!closed && call.isReady() && (!replay.isEmpty() || !pending.isEmpty())) {
+            if (options.encoding() == Encoding.BATCHED) {
+                sendBatch();
+            } else {
+                send(nextQueued());
+            }
+        }
+        if (!closed && replay.isEmpty() && pending.isEmpty() && completeWhenDrained) {
+            closed = true;
+            call.onCompleted();
+        }
+    }
+
+    private ScoreFrame nextQueued() {
+        return replay.isEmpty() ? pending.pollFirst() : replay.pollFirst();
+    }
+
+    private void send(ScoreFrame frame) {
+        byte[] message = switch (options.encoding()) {
+            case FULL -> full(frame);
+            case COMPACT -> compact(frame);
+            case BATCHED -> batch(new ScoreFrame[]{frame}, 1);
+        };
+        write(message, 1);
+        lastSentSequence = frame.sequence();
+    }
+
+    /**
+     * Coalesces whatever is queued, up to {@code maxBatch} updates, into one {@code ScoreBatch}.
+     * Replays and catch-up after a stall therefore cost one message per batch instead of one
+     * per ball. Live balls still go out on their own as soon as they are bowled.
+     */
+    private void sendBatch() {
+        int count = Math.min(Math.max(options.maxBatch(), 1), replay.size() + pending.size());
+        ScoreFrame[] frames = new ScoreFrame[count];
+        for (int i = 0; i < count; i++) {
+            frames[i] = nextQueued();
+        }
+        write(batch(frames, count), count);
+        lastSentSequence = frames[count - 1].sequence();
+    }
+
+    private void write(byte[] message, int updates) {
+        boolean sampleCpu = (++writes & CPU_SAMPLE_MASK) == 0;
+        long cpuStart = sampleCpu ? metrics.threadCpuTime() : 0;
+        call.onNext(message);
+        if (sampleCpu) {
+            metrics.writeCpu(metrics.threadCpuTime() - cpuStart, updates);
+        }
+        metrics.sent(updates);
+    }
+
+    private byte[] full(ScoreFrame frame) {
+        return options.stats() ? frame.bytesWithStats() : frame.bytes();
+    }
+
+    /**
+     * A compact delta is only meaningful when the client saw the frame it is relative to, so
+     * after a gap (late join, conflation, dropped balls) or every {@code keyframeInterval}
+     * frames the subscriber sends a keyframe instead.
+     */
+    private byte[] compact(ScoreFrame frame) {
+        boolean contiguous = lastSentSequence >= 0 && frame.sequence() == lastSentSequence + 1;
+        if (contiguous && sinceKeyframe < options.keyframeInterval()) {
+            sinceKeyframe++;
+            return frame.compactDelta();
+        }
+        sinceKeyframe = 1;
+        return frame.compactKeyframe();
+    }
+
+    /**
+     * A serialized {@code ScoreBatch} is just each update's bytes behind a field tag and length,
+     * so the pre-encoded frames are copied in without being serialized again.
+     */
+    private byte[] batch(ScoreFrame[] frames, int count) {
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            size += CodedOutputStream.computeByteArraySize(BATCH_UPDATES_FIELD, full(frames[i]));
+        }
+        byte[] message = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(message);
+        try {
+            for (int i = 0; i < count; i++) {
+                out.writeByteArray(BATCH_UPDATES_FIELD, full(frames[i]));
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return message;
+    }
+
+    /** Removes matching frames, all of them or just the oldest one, counting each as dropped. */
+    private void dropWhere(Predicate<ScoreFrame> filter, boolean oldestOnly) {
+        Iterator<ScoreFrame> it = pending.iterator();
+        while (it.hasNext()) {
+            if (filter.test(it.next())) {
+                it.remove();
+                metrics.dropped();
+                if (oldestOnly) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void disconnect() {
+        closed = true;
+        pending.forEach(f -> metrics.dropped());
+        replay.clear();
+        pending.clear();
+        metrics.slowConsumerDisconnected();
+        call.onError(Status.RESOURCE_EXHAUSTED
+                .withDescription("Subscriber fell more than " + options.bufferLimit() + " updates behind")
+                .asRuntimeException());
+        LiveMatch current = match;
+        if (current != null) {
+            current.unsubscribe(this);
+        }
+    }
+
+    private void cancel() {
+        cancelled = true;
+        synchronized (this) {
+            closed = true;
+            replay.clear();
+            pending.clear();
+        }
+        LiveMatch current = match;
+        if (current != null) {
+            current.unsubscribe(this);
+        }
+    }
+}
@@ -1,85 +1,154 @@
 package com.example.grpc;
 
-import com.example.engine.CricketEngine;
+import com.example.engine.MatchSimulator;
+import com.example.engine.SimulationResult;
+import com.example.match.LiveMatch;
+import com.example.match.MatchRegistry;
+import com.example.match.MatchSetup;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
 import io.grpc.stub.StreamObserver;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
 @Service
 public class ScoreServiceImpl extends ScoreServiceGrpc.ScoreServiceImplBase {
 
-    private static final int MAX_WICKETS = 10;
-
-    @Override
-    public void streamScore(StreamRequest request, StreamObserver<ScoreUpdate> responseObserver) {
-        int inningsOneTotal = playInnings(1, 0, responseObserver);
+    private final MatchRegistry registry;
+    private final ScoreStreamMetrics metrics;
+    private final MatchSimulator simulator;
+    private final SlowConsumerPolicy defaultPolicy;
+    private final int bufferLimit;
+    private final int keyframeInterval;
+    private final int defaultMaxBatch;
+    private final String defaultCompression;
+    private final long maxSimulatedMatches;
 
-        int target = inningsOneTotal + 1;
-        playInnings(2, target, responseObserver);
-
-        responseObserver.onCompleted();
+    public ScoreServiceImpl(MatchRegistry registry, ScoreStreamMetrics metrics, MatchSimulator simulator,
+                            @Value("${cricket.stream.slow-consumer-policy:DISCONNECT}") SlowConsumerPolicy defaultPolicy,
+                            @Value("${cricket.stream.buffer-limit:32}") int bufferLimit,
+                            @Value("${cricket.stream.compact-keyframe-interval:12}") int keyframeInterval,
+                            @Value("${cricket.stream.max-batch:64}") int defaultMaxBatch,
+                            @Value("${cricket.stream.compression:identity}") String defaultCompression,
+                            @Value("${cricket.simulation.max-matches:50000000}") long maxSimulatedMatches) {
+        this.registry = registry;
+        this.metrics = metrics;
+        this.simulator = simulator;
+        this.defaultPolicy = defaultPolicy;
+        this.bufferLimit = bufferLimit;
+        this.keyframeInterval = keyframeInterval;
+        this.defaultMaxBatch = defaultMaxBatch;
+        this.defaultCompression = defaultCompression;
+        this.maxSimulatedMatches = maxSimulatedMatches;
     }
 
-    private int playInnings(int inningsNumber, int target, StreamObserver<ScoreUpdate> responseObserver) {
-        CricketEngine engine = new CricketEngine();
-        int latestTotal = 0;
-        int latestWickets = 0;
-
-        inningsLoop:
-        for (int o = 1; o <= CricketEngine.OVERS; o++) {
-            for (int b = 1; b <= CricketEngine.BALLS; b++) {
-                CricketEngine.Ball br = engine.next(o, b);
-                latestTotal = br.total();
-                latestWickets = br.wickets();
-
-                ScoreUpdate update = ScoreUpdate.newBuilder()
-                        .setInnings(inningsNumber)
-                        .setTarget(target)
-                        .setOver(br.over())
-                        .setBall(br.ball())
-                        .setRuns(br.runs())
-                        .setTotal(latestTotal)
-                        .setWickets(latestWickets)
-                        .setComment(br.comment())
-                        .setStatus("PLAY")
-                        .build();
+    /**
+     * Binds the streaming methods with a response marshaller that writes pre-encoded frames, so
+     * a ball watched by many viewers is serialized once rather than once per call.
+     */
+    @Override
+    public ServerServiceDefinition bindService() {
+        MethodDescriptor<StreamRequest, byte[]> streamScore = preEncoded(ScoreServiceGrpc.getStreamScoreMethod());
+        MethodDescriptor<StreamRequest, byte[]> streamScoreCompact = preEncoded(ScoreServiceGrpc.getStreamScoreCompactMethod());
+        MethodDescriptor<StreamRequest, byte[]> streamScoreBatched = preEncoded(ScoreServiceGrpc.getStreamScoreBatchedMethod());
 
-                responseObserver.onNext(update);
+        ServiceDescriptor service = ServiceDescriptor.newBuilder(ScoreServiceGrpc.SERVICE_NAME)
+                .setSchemaDescriptor(ScoreServiceGrpc.getServiceDescriptor().getSchemaDescriptor())
+                .addMethod(streamScore)
+                .addMethod(ScoreServiceGrpc.getSimulateMatchesMethod())
+                .addMethod(streamScoreCompact)
+                .addMethod(streamScoreBatched)
+                .build();
 
-                if (inningsNumber == 2 && target > 0 && latestTotal >= target) {
-                    break inningsLoop; // chase completed
-                }
-                if (latestWickets >= MAX_WICKETS) {
-                    break inningsLoop; // all out
-                }
+        return ServerServiceDefinition.builder(service)
+                .addMethod(streamScore, ServerCalls.asyncServerStreamingCall(
+                        (request, observer) -> stream(request, observer, GrpcScoreSubscriber.Encoding.FULL)))
+                .addMethod(ScoreServiceGrpc.getSimulateMatchesMethod(), ServerCalls.asyncUnaryCall(this::simulateMatches))
+                .addMethod(streamScoreCompact, ServerCalls.asyncServerStreamingCall(
+                        (request, observer) -> stream(request, observer, GrpcScoreSubscriber.Encoding.COMPACT)))
+                .addMethod(streamScoreBatched, ServerCalls.asyncServerStreamingCall(
+                        (request, observer) -> stream(request, observer, GrpcScoreSubscriber.Encoding.BATCHED)))
+                .build();
+    }
 
-                try { Thread.sleep(700); } catch (InterruptedException ignored) {}
-            }
+    @Override
+    public void simulateMatches(SimulationRequest request, StreamObserver<SimulationSummary> responseObserver) {
+        long count = request.getCount();
+        if (count <= 0 || count > maxSimulatedMatches) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("count must be between 1 and " + maxSimulatedMatches)
+                    .asRuntimeException());
+            return;
         }
+        long seed = request.hasSeed() ? request.getSeed() : ThreadLocalRandom.current().nextLong();
 
-        String endComment;
-        if (inningsNumber == 1) {
-            endComment = "End of innings 1: " + latestTotal + "/" + latestWickets + ". Target: " + (latestTotal + 1);
-        } else {
-            if (latestTotal >= target) {
-                endComment = "Innings 2: chase complete. Won by " + (MAX_WICKETS - latestWickets) + " wickets";
+        // Runs on the simulation pool; the handler thread is released straight away.
+        simulator.simulateAsync(count, seed).whenComplete((result, error) -> {
+            if (error != null) {
+                responseObserver.onError(Status.INTERNAL.withDescription("Simulation failed").withCause(error).asRuntimeException());
             } else {
-                endComment = "Innings 2: fell short. Needed " + (target - latestTotal) + " more";
+                responseObserver.onNext(toSummary(result, seed));
+                responseObserver.onCompleted();
             }
+        });
+    }
+
+    private void stream(StreamRequest request, StreamObserver<byte[]> responseObserver,
+                        GrpcScoreSubscriber.Encoding encoding) {
+        SlowConsumerPolicy policy = switch (request.getSlowConsumerPolicy()) {
+            case CONFLATE, DROP_MINOR, DISCONNECT -> request.getSlowConsumerPolicy();
+            default -> defaultPolicy;
+        };
+        int maxBatch = request.getMaxBatch() > 0 ? request.getMaxBatch() : defaultMaxBatch;
+        ServerCallStreamObserver<byte[]> call = (ServerCallStreamObserver<byte[]>) responseObserver;
+        GrpcScoreSubscriber subscriber = new GrpcScoreSubscriber(call,
+                new GrpcScoreSubscriber.Options(encoding, policy, bufferLimit, keyframeInterval, maxBatch,
+                        request.getIncludeStats()), metrics);
+        String compression = request.getCompression().isEmpty() ? defaultCompression : request.getCompression();
+        try {
+            // Falls back to identity when the client did not advertise this encoding.
+            call.setCompression(compression);
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Unsupported compression: " + compression)
+                    .asRuntimeException());
+            return;
         }
+        try {
+            long fromSequence = request.hasFromSequence() ? request.getFromSequence() : -1;
+            LiveMatch match = registry.watch(request.getMatchId(), fromSequence, MatchSetup.forRequest(request), subscriber);
+            subscriber.attach(match);
+        } catch (StatusRuntimeException e) {
+            responseObserver.onError(e);
+        }
+    }
 
-        ScoreUpdate finalUpdate = ScoreUpdate.newBuilder()
-                .setInnings(inningsNumber)
-                .setTarget(target)
-                .setOver(0)
-                .setBall(0)
-                .setRuns(0)
-                .setTotal(latestTotal)
-                .setWickets(latestWickets)
-                .setComment(endComment)
-                .setStatus("INNINGS_END")
+    private static <T> MethodDescriptor<StreamRequest, byte[]> preEncoded(MethodDescriptor<StreamRequest, T> method) {
+        return method.toBuilder(ProtoUtils.marshaller(StreamRequest.getDefaultInstance()), PreEncodedMarshaller.INSTANCE)
                 .build();
+    }
 
-        responseObserver.onNext(finalUpdate);
-        return latestTotal;
+    private static SimulationSummary toSummary(SimulationResult result, long seed) {
+        return SimulationSummary.newBuilder()
+                .setMatches(result.matches())
+                .setSeed(seed)
+                .setBattingFirstWins(result.battingFirstWins())
+                .setChasingWins(result.chasingWins())
+                .setTies(result.ties())
+                .setChasingWinProbability(result.chasingWinProbability())
+                .addAllFirstInningsTotals(Arrays.stream(result.firstInningsTotals()).boxed().toList())
+                .addAllSecondInningsTotals(Arrays.stream(result.secondInningsTotals()).boxed().toList())
+                .addAllFirstInningsWickets(Arrays.stream(result.firstInningsWickets()).boxed().toList())
+                .addAllSecondInningsWickets(Arrays.stream(result.secondInningsWickets()).boxed().toList())
+                .build();
     }
 }
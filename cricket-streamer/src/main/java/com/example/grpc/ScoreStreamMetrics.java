@@ -0,0 +1,84 @@
+package com.example.grpc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counters for what happened to each frame offered to a {@code StreamScore} subscriber.
+ */
+@Component
+public class ScoreStreamMetrics {
+
+    private final Counter sent;
+    private final Counter conflated;
+    private final Counter dropped;
+    private final Counter replayed;
+    private final Counter slowConsumerDisconnects;
+    private final DistributionSummary cpuPerUpdate;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported();
+
+    public ScoreStreamMetrics(MeterRegistry registry) {
+        this.sent = Counter.builder("cricket.stream.frames")
+                .description("Score frames handed to gRPC for delivery")
+                .tag("outcome", "sent")
+                .register(registry);
+        this.conflated = Counter.builder("cricket.stream.frames")
+                .description("Score frames replaced by a newer frame before delivery")
+                .tag("outcome", "conflated")
+                .register(registry);
+        this.dropped = Counter.builder("cricket.stream.frames")
+                .description("Score frames dropped for a slow subscriber")
+                .tag("outcome", "dropped")
+                .register(registry);
+        this.replayed = Counter.builder("cricket.stream.frames")
+                .description("Score frames read back from a ball log for a resuming subscriber")
+                .tag("outcome", "replayed")
+                .register(registry);
+        this.slowConsumerDisconnects = Counter.builder("cricket.stream.slow.disconnects")
+                .description("Subscribers disconnected for exceeding their buffer limit")
+                .register(registry);
+        this.cpuPerUpdate = DistributionSummary.builder("cricket.stream.write.cpu")
+                .description("Thread CPU time spent handing one update to gRPC, sampled")
+                .baseUnit("nanoseconds")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    public void sent(int frames) {
+        sent.increment(frames);
+    }
+
+    /** Current thread's CPU time in nanoseconds, or 0 where the JVM cannot measure it. */
+    long threadCpuTime() {
+        return cpuTimeSupported ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    /** Records one sampled write of {@code frames} updates that took {@code cpuNanos}. */
+    void writeCpu(long cpuNanos, int frames) {
+        if (cpuTimeSupported && cpuNanos >= 0) {
+            cpuPerUpdate.record((double) cpuNanos / frames);
+        }
+    }
+
+    public void conflated() {
+        conflated.increment();
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    public void replayed(int frames) {
+        replayed.increment(frames);
+    }
+
+    void slowConsumerDisconnected() {
+        slowConsumerDisconnects.increment();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.grpc;
+
+import io.grpc.Metadata;
+import io.grpc.ServerStreamTracer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts response bytes per method before and after message compression, so the saving from
+ * {@code gzip}/{@code deflate} and from batching can be read straight off the metrics.
+ */
+@Component
+public class StreamBytesTracerFactory extends ServerStreamTracer.Factory {
+
+    private final MeterRegistry registry;
+    private final Map<String, Counters> byMethod = new ConcurrentHashMap<>();
+
+    public StreamBytesTracerFactory(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+        Counters counters = byMethod.computeIfAbsent(fullMethodName, this::counters);
+        return new ServerStreamTracer() {
+            @Override
+            public void outboundWireSize(long bytes) {
+                counters.wire.increment(bytes);
+            }
+
+            @Override
+            public void outboundUncompressedSize(long bytes) {
+                counters.uncompressed.increment(bytes);
+            }
+        };
+    }
+
+    private Counters counters(String method) {
+        return new Counters(
+                Counter.builder("cricket.stream.bytes")
+                        .description("Response message bytes written to the transport, after compression")
+                        .baseUnit("bytes")
+                        .tag("kind", "wire")
+                        .tag("method", method)
+                        .register(registry),
+                Counter.builder("cricket.stream.bytes")
+                        .description("Response message bytes before compression")
+                        .baseUnit("bytes")
+                        .tag("kind", "uncompressed")
+                        .tag("method", method)
+                        .register(registry));
+    }
+
+    private record Counters(Counter wire, Counter uncompressed) {
+    }
+}
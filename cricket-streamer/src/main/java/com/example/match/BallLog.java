@@ -0,0 +1,241 @@
+package com.example.match;
+
+import com.example.grpc.ScoreUpdate;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only, memory-mapped record of every frame of one match. The file outlives the match,
+ * so a viewer that reconnects (or arrives after the final ball) can replay it from any sequence.
+ *
+ * <pre>
+ *  frame:        [int length][byte flags][length bytes of ScoreUpdate]
+ *                followed, if flags bit 1 is set, by [int length][length bytes of the stats suffix]
+ *                flags bit 0 = wicket
+ *  end of match: [int -1]
+ *  log full:     [int -2], written in place of the first frame that did not fit
+ *  unused space: zero filled, read as "no more frames yet"
+ * </pre>
+ *
+ * <p>A frame's sequence is its position in the log, so once one frame is missing no later frame
+ * may be written: the log stays full from then on, also after it is reopened.
+ *
+ * <p>Not thread-safe while it is being written; a live match only touches its log while
+ * holding its own lock. A complete log opened with {@link #open} may be shared by any number of
+ * readers.
+ */
+public final class BallLog {
+
+    private static final int END_OF_MATCH = -1;
+    private static final int FULL = -2;
+    private static final byte WICKET = 1;
+    private static final byte STATS = 2;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private boolean complete;
+    private boolean full;
+    /** Where the last {@link #scan} stopped: just past the last whole frame. */
+    private int scanEnd;
+
+    private BallLog(Path file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates the log for a new match. Fails if {@code file} already exists: another log, or a
+     * viewer still replaying it, may have it mapped, and a mapped file must never shrink.
+     */
+    public static BallLog create(Path file, int capacity) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new BallLog(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create ball log " + file, e);
+        }
+    }
+
+    /**
+     * Opens an existing log for reading. Reading a log opened this way has no side effects, so
+     * once it is {@linkplain #isComplete() complete} any number of threads may {@link #read} it.
+     */
+    public static BallLog open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            BallLog log = new BallLog(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            log.complete = log.scan(0, null) < 0;
+            return log;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open ball log " + file, e);
+        }
+    }
+
+    /**
+     * Reopens the log of a match that was handed off mid-play, positioned to append after its
+     * last frame. The log may already be {@linkplain #isComplete() complete} if the match
+     * finished before the handoff.
+     */
+    public static BallLog reopen(Path file, int capacity) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = Math.max(channel.size(), capacity);
+            BallLog log = new BallLog(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            log.complete = log.scan(0, null) < 0;
+            log.buffer.position(log.scanEnd);
+            return log;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot reopen ball log " + file, e);
+        }
+    }
+
+    /**
+     * Appends a frame. Returns {@code false} if the log is full, in which case the frame (and
+     * every later one) is only available live.
+     */
+    public boolean append(ScoreFrame frame) {
+        byte[] bytes = frame.bytes();
+        byte[] stats = frame.statsSuffix();
+        int statsSize = stats == null ? 0 : Integer.BYTES + stats.length;
+        if (full) {
+            return false;
+        }
+        if (buffer.remaining() < Integer.BYTES + 1 + bytes.length + statsSize + Integer.BYTES) {
+            markFull(); // always keeps room for this or the end marker
+            return false;
+        }
+        int start = buffer.position();
+        try {
+            buffer.putInt(bytes.length)
+                    .put((byte) ((frame.isWicket() ? WICKET : 0) | (stats == null ? 0 : STATS)))
+                    .put(bytes);
+            if (stats != null) {
+                buffer.putInt(stats.length).put(stats);
+            }
+            return true;
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            markFull();
+            return false;
+        }
+    }
+
+    /** Marks the log as full where the next frame would have gone; the end marker may still replace it. */
+    private void markFull() {
+        full = true;
+        buffer.putInt(buffer.position(), FULL);
+    }
+
+    public void markComplete() {
+        if (!complete) {
+            buffer.putInt(END_OF_MATCH);
+            buffer.force();
+            complete = true;
+        }
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /** Whether a frame has been refused, after which every later one is too. */
+    public boolean isFull() {
+        return full;
+    }
+
+    /** Writes appended frames through to the file, e.g. before another process takes over. */
+    public void force() {
+        buffer.force();
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /** Every logged frame with a sequence of at least {@code fromSequence}, in order. */
+    public List<ScoreFrame> read(long fromSequence) {
+        List<ScoreFrame> frames = new ArrayList<>();
+        scan(fromSequence, frames);
+        return frames;
+    }
+
+    /**
+     * Walks the log, collecting frames from {@code fromSequence} into {@code into} when it is not
+     * null. Returns the number of frames, negated and minus one if the end marker was reached.
+     * Only the scan without {@code into}, made once when the log is opened, updates
+     * {@link #scanEnd} and {@link #full}; reads leave the log's state alone.
+     */
+    private int scan(long fromSequence, List<ScoreFrame> into) {
+        ByteBuffer view = buffer.duplicate().position(0);
+        ScoreUpdate previous = null;
+        int sequence = 0;
+        int end = 0;
+        while (view.remaining() >= Integer.BYTES) {
+            int length = view.getInt();
+            if (length == END_OF_MATCH) {
+                if (into == null) {
+                    scanEnd = end;
+                }
+                return -sequence - 1;
+            }
+            if (length == FULL) {
+                if (into == null) {
+                    full = true;
+                }
+                break;
+            }
+            if (length == 0 || view.remaining() < 1 + length) {
+                break;
+            }
+            byte flags = view.get();
+            int start = view.position();
+            int statsLength = 0;
+            if ((flags & STATS) != 0) {
+                if (view.remaining() < length + Integer.BYTES) {
+                    break;
+                }
+                statsLength = view.getInt(start + length);
+                if (statsLength <= 0 || view.remaining() < length + Integer.BYTES + statsLength) {
+                    break;
+                }
+            }
+            if (into != null && sequence >= fromSequence - 1) {
+                byte[] bytes = new byte[length];
+                view.get(bytes);
+                ScoreUpdate update = parse(bytes);
+                if (sequence >= fromSequence) {
+                    byte[] stats = null;
+                    if (statsLength > 0) {
+                        stats = new byte[statsLength];
+                        view.get(start + length + Integer.BYTES, stats);
+                    }
+                    into.add(ScoreFrame.of(sequence, update, bytes, stats, (flags & WICKET) != 0, previous));
+                }
+                previous = update;
+            }
+            view.position(start + length + (statsLength > 0 ? Integer.BYTES + statsLength : 0));
+            end = view.position();
+            sequence++;
+        }
+        if (into == null) {
+            scanEnd = end;
+        }
+        return sequence;
+    }
+
+    private ScoreUpdate parse(byte[] bytes) {
+        try {
+            return ScoreUpdate.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Corrupt ball log " + file, e);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.match;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Where named matches keep their {@link BallLog}s under {@code cricket.match.log-dir}. Every time
+ * a match id is started it gets a new generation, {@code <id>.<n>.balls}, so reusing the id of a
+ * finished match never touches the log viewers may still be replaying. Matches handed off at
+ * shutdown leave a {@link MatchSnapshot} next to their log, for the next process using the
+ * directory to pick up.
+ */
+@Slf4j
+@Component
+public class BallLogStore {
+
+    private static final String SNAPSHOT = ".snapshot";
+    private static final String BALLS = ".balls";
+
+    private final Path directory;
+    private final int capacity;
+    /** Highest generation handed out per match id, found on disk the first time the id is used. */
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    /** The latest complete log of each match id, mapped once and shared by every replaying viewer. */
+    private final ConcurrentMap<String, BallLog> replays = new ConcurrentHashMap<>();
+
+    public BallLogStore(@Value("${cricket.match.log-dir:${java.io.tmpdir}/cricket-streamer/ball-log}") Path directory,
+                        @Value("${cricket.match.log-capacity-bytes:262144}") int capacity) {
+        this.directory = directory;
+        this.capacity = capacity;
+    }
+
+    /** A new, empty log in the next generation of {@code matchId}. */
+    public BallLog create(String matchId) {
+        createDirectory();
+        AtomicLong generation = generation(matchId);
+        while (true) {
+            try {
+                return BallLog.create(fileFor(matchId, generation.incrementAndGet()), capacity);
+            } catch (UncheckedIOException e) {
+                if (!(e.getCause() instanceof FileAlreadyExistsException)) {
+                    throw e;
+                }
+                // another process sharing the directory took this generation; try the next one
+            }
+        }
+    }
+
+    /** Removes a log that was created but never used, e.g. by the loser of a race to start a match. */
+    public void discard(BallLog ballLog) {
+        try {
+            Files.deleteIfExists(ballLog.file());
+        } catch (IOException e) {
+            log.warn("Cannot delete unused ball log {}", ballLog.file(), e);
+        }
+    }
+
+    /**
+     * The latest log of a match id that has already been played on this node, or {@code null}.
+     * A complete log is mapped once and the same {@link BallLog} returned to every caller.
+     */
+    public BallLog openExisting(String matchId) {
+        Path file = latestFile(matchId);
+        if (file == null) {
+            return null;
+        }
+        BallLog cached = replays.get(matchId);
+        if (cached != null && cached.file().equals(file)) {
+            return cached;
+        }
+        BallLog played = BallLog.open(file);
+        if (!played.isComplete()) {
+            return played;
+        }
+        return replays.merge(matchId, played, (current, opened) -> current.file().equals(file) ? current : opened);
+    }
+
+    /** The latest log of a handed-off match, reopened for appending. */
+    public BallLog reopen(String matchId) {
+        Path file = latestFile(matchId);
+        if (file == null) {
+            throw new IllegalStateException("No ball log for match " + matchId + " in " + directory);
+        }
+        return BallLog.reopen(file, capacity);
+    }
+
+    public void saveSnapshot(MatchSnapshot snapshot) {
+        createDirectory();
+        try {
+            snapshot.write(directory.resolve(snapshot.matchId() + SNAPSHOT));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot save snapshot of match " + snapshot.matchId(), e);
+        }
+    }
+
+    /** Reads and removes every saved snapshot. Unreadable snapshots are skipped and removed too. */
+    public List<MatchSnapshot> takeSnapshots() {
+        List<MatchSnapshot> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return snapshots;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SNAPSHOT)).toList()) {
+                try {
+                    MatchSnapshot snapshot = MatchSnapshot.read(file);
+                    if (latestFile(snapshot.matchId()) != null) {
+                        snapshots.add(snapshot);
+                    } else {
+                        log.warn("Ignoring snapshot {}: its ball log is missing", file);
+                    }
+                } catch (IOException e) {
+                    log.warn("Ignoring unreadable match snapshot {}", file, e);
+                }
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list match snapshots in " + directory, e);
+        }
+        return snapshots;
+    }
+
+    private void createDirectory() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create ball log directory " + directory, e);
+        }
+    }
+
+    private Path fileFor(String matchId, long generation) {
+        return directory.resolve(matchId + "." + generation + BALLS);
+    }
+
+    /** The newest generation of {@code matchId} that exists on disk, or {@code null}. */
+    private Path latestFile(String matchId) {
+        long highest = generation(matchId).get();
+        // a generation may be missing if it was discarded; fall back to the one before it
+        for (long generation = highest; generation > 0; generation--) {
+            Path file = fileFor(matchId, generation);
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /** The generation counter of {@code matchId}; the directory is listed outside the map's lock. */
+    private AtomicLong generation(String matchId) {
+        AtomicLong generation = generations.get(matchId);
+        if (generation == null) {
+            AtomicLong found = highestGeneration(matchId);
+            generation = generations.putIfAbsent(matchId, found);
+            if (generation == null) {
+                generation = found;
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * The highest generation of {@code matchId} on disk. Ids may contain dots, but a generation
+     * is only digits, so {@code <id>.<n>.balls} always parses back to one id and generation.
+     */
+    private AtomicLong highestGeneration(String matchId) {
+        long highest = 0;
+        if (Files.isDirectory(directory)) {
+            String prefix = matchId + ".";
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    String name = file.getFileName().toString();
+                    if (name.length() <= prefix.length() + BALLS.length()
+                            || !name.startsWith(prefix) || !name.endsWith(BALLS)) {
+                        continue;
+                    }
+                    String generation = name.substring(prefix.length(), name.length() - BALLS.length());
+                    if (!generation.isEmpty() && generation.length() < 19
+                            && generation.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                        highest = Math.max(highest, Long.parseLong(generation));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot list ball logs in " + directory, e);
+            }
+        }
+        return new AtomicLong(highest);
+    }
+}
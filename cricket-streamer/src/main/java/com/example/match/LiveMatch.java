@@ -0,0 +1,393 @@
+package com.example.match;
+
+import com.example.engine.Commentary;
+import com.example.engine.CricketEngine;
+import com.example.engine.InningsStats;
+import com.example.engine.OutcomeModel;
+import com.example.grpc.MatchStats;
+import com.example.grpc.Outcome;
+import com.example.grpc.ScoreUpdate;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A two-innings match played one delivery at a time. Each call to {@link #advance()} bowls a
+ * single ball (or closes an innings), so the match can be driven by a shared scheduler instead
+ * of a thread sleeping between deliveries.
+ *
+ * <p>Every delivery is encoded once as a {@link ScoreFrame} and fanned out to all current
+ * subscribers. Subscribers that join mid-match first receive the latest frame as a snapshot of
+ * the score, or, when they ask for a starting sequence, every frame since then from the match's
+ * {@link BallLog}.
+ *
+ * <p>Each innings draws from its own generator split off the match seed, so a match is fully
+ * determined by its {@link MatchSetup}.
+ *
+ * <p>Run rates, projections, the partnership and runs per over are kept up to date ball by ball
+ * in an {@link InningsStats} and attached to every frame, for subscribers that ask for them.
+ */
+@Slf4j
+public class LiveMatch {
+
+    private final String matchId;
+    private final boolean stopWhenUnwatched;
+    private final BallLog ballLog;
+    private final MatchSetup setup;
+    private final OutcomeModel model;
+    private final SplittableRandom random;
+    private final Set<MatchSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private CricketEngine engine;
+    private final InningsStats stats = new InningsStats();
+    private int innings = 1;
+    private int target = 0;
+    private int over = 1;
+    private int ball = 1;
+    private int latestTotal = 0;
+    private int latestWickets = 0;
+
+    // guarded by this
+    private ScoreFrame latest;
+    private long resumeFrom;
+    private boolean finished;
+    private Runnable onFinish = () -> {};
+
+    private volatile boolean cancelled;
+    private volatile boolean suspended;
+    /** How to resume a demand-driven match parked until its subscribers catch up, while it is. */
+    private final AtomicReference<Runnable> parked = new AtomicReference<>();
+
+    /**
+     * @param matchId           name viewers use to share the match, or {@code null} for a private match
+     * @param stopWhenUnwatched whether the match stops as soon as its last subscriber leaves
+     * @param ballLog           where every frame is recorded for replay, or {@code null} to keep none
+     */
+    public LiveMatch(String matchId, boolean stopWhenUnwatched, BallLog ballLog) {
+        this(matchId, stopWhenUnwatched, ballLog, MatchSetup.realTime(), OutcomeModel.standard());
+    }
+
+    public LiveMatch(String matchId, boolean stopWhenUnwatched, BallLog ballLog, MatchSetup setup, OutcomeModel model) {
+        this.matchId = matchId;
+        this.stopWhenUnwatched = stopWhenUnwatched;
+        this.ballLog = ballLog;
+        this.setup = setup;
+        this.model = model;
+        this.random = new SplittableRandom(setup.seed());
+        this.engine = new CricketEngine(random.split(), model);
+    }
+
+    public String matchId() {
+        return matchId;
+    }
+
+    public MatchClock clock() {
+        return setup.clock();
+    }
+
+    public long seed() {
+        return setup.seed();
+    }
+
+    /** Registers a callback run once the match has finished, failed or been cancelled. */
+    public synchronized void whenFinished(Runnable callback) {
+        this.onFinish = callback;
+    }
+
+    public void subscribe(MatchSubscriber subscriber) {
+        subscribe(subscriber, -1);
+    }
+
+    /**
+     * @param fromSequence first frame the subscriber wants replayed, or a negative value to start
+     *                     from a snapshot of the current score
+     */
+    public synchronized void subscribe(MatchSubscriber subscriber, long fromSequence) {
+        if (fromSequence >= 0 && ballLog != null) {
+            subscriber.onReplay(ballLog.read(fromSequence));
+        } else if (latest != null) {
+            subscriber.onFrame(latest);
+        }
+        if (finished) {
+            subscriber.onMatchEnd();
+            return;
+        }
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(MatchSubscriber subscriber) {
+        synchronized (this) {
+            if (subscribers.remove(subscriber) && stopWhenUnwatched && subscribers.isEmpty()) {
+                cancelled = true;
+            }
+        }
+        wake(); // the rest may all be ready, or nobody is left
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /** Whether every subscriber has written out everything it was given so far. */
+    public boolean subscribersReady() {
+        for (MatchSubscriber subscriber : subscribers) {
+            if (!subscriber.isReady()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parks a demand-driven match whose subscribers are not ready, instead of polling them:
+     * {@code resume} runs once, from {@link #wake()}, when they are. Returns {@code false}
+     * without parking if they became ready meanwhile, in which case the caller bowls on.
+     */
+    boolean park(Runnable resume) {
+        parked.set(resume);
+        // a subscriber may have caught up between the caller's check and the line above
+        if (canResume()) {
+            return !parked.compareAndSet(resume, null);
+        }
+        return true;
+    }
+
+    /**
+     * Resumes the match if it is parked and every subscriber is now ready, or it has been
+     * cancelled or suspended meanwhile. Subscribers call this when they catch up; it must not be
+     * called while holding a subscriber's lock.
+     */
+    public void wake() {
+        Runnable resume = parked.get();
+        if (resume != null && canResume() && parked.compareAndSet(resume, null)) {
+            resume.run();
+        }
+    }
+
+    private boolean canResume() {
+        return cancelled || suspended || subscribersReady();
+    }
+
+    /** Sequence the next frame will get. */
+    public synchronized long nextSequence() {
+        return latest == null ? 0 : latest.sequence() + 1;
+    }
+
+    /**
+     * Stops the match where it is so another process can take it over, and tells every
+     * subscriber with a {@link MatchSuspendedException}. The ball log is flushed but not marked
+     * complete. Returns what the new owner needs to resume, or {@code null} for a private or
+     * already finished match, which cannot be resumed.
+     */
+    public MatchSnapshot suspend() {
+        MatchSnapshot snapshot;
+        synchronized (this) {
+            snapshot = suspendLocked();
+        }
+        wake(); // a parked match still has to tell the scheduler it is done
+        return snapshot;
+    }
+
+    private MatchSnapshot suspendLocked() {
+        if (finished) {
+            return null;
+        }
+        suspended = true;
+        finished = true;
+        if (ballLog != null) {
+            ballLog.force();
+        }
+        MatchSuspendedException handoff = new MatchSuspendedException(matchId);
+        for (MatchSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onMatchError(handoff);
+            } catch (RuntimeException ignored) {
+                // stream already closed
+            }
+        }
+        subscribers.clear();
+        onFinish.run();
+        return matchId == null ? null : new MatchSnapshot(matchId, setup, nextSequence(), model.id());
+    }
+
+    /**
+     * Replays the match up to {@code nextSequence} without logging or publishing anything, so a
+     * match suspended elsewhere carries on from the same ball. Must be called before the match
+     * is started. Returns {@code false} if the match finished on the way.
+     */
+    boolean fastForward(long nextSequence) {
+        synchronized (this) {
+            resumeFrom = nextSequence;
+        }
+        boolean more = true;
+        while (more && nextSequence() < nextSequence) {
+            more = advance();
+        }
+        return more;
+    }
+
+    /**
+     * Bowls the next delivery. Returns {@code false} once the match is finished, cancelled or
+     * suspended, after which the scheduler must not call this method again.
+     */
+    public boolean advance() {
+        if (suspended) {
+            return false;
+        }
+        if (cancelled) {
+            finish(null);
+            return false;
+        }
+
+        CricketEngine.Ball br = engine.next(over, ball);
+        stats.record(br.outcome());
+        boolean wicket = br.wickets() > latestWickets;
+        latestTotal = br.total();
+        latestWickets = br.wickets();
+
+        publish(wicket, ScoreUpdate.newBuilder()
+                .setInnings(innings)
+                .setTarget(target)
+                .setOver(br.over())
+                .setBall(br.ball())
+                .setRuns(br.runs())
+                .setTotal(latestTotal)
+                .setWickets(latestWickets)
+                .setComment(br.comment())
+                .setStatus("PLAY")
+                .setOutcome(outcomeOf(br.outcome())));
+
+        boolean chaseComplete = innings == 2 && target > 0 && latestTotal >= target;
+        boolean allOut = latestWickets >= CricketEngine.MAX_WICKETS;
+        boolean oversDone = br.legal() && over == CricketEngine.OVERS && ball == CricketEngine.BALLS;
+        if (!chaseComplete && !allOut && !oversDone) {
+            if (br.legal() && ++ball > CricketEngine.BALLS) {
+                ball = 1;
+                over++;
+            }
+            return true;
+        }
+
+        publish(false, inningsEnd());
+        if (innings == 2) {
+            finish(null);
+            return false;
+        }
+
+        innings = 2;
+        target = latestTotal + 1;
+        engine = new CricketEngine(random.split(), model);
+        engine.reset(2);
+        stats.reset(target);
+        over = 1;
+        ball = 1;
+        latestTotal = 0;
+        latestWickets = 0;
+        return true;
+    }
+
+    /** Stops the match at the next tick. Current subscribers are completed normally. */
+    public void cancel() {
+        cancelled = true;
+        wake();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Terminates every subscriber's stream after the engine failed mid-match. */
+    public void fail(Throwable t) {
+        cancelled = true;
+        finish(t);
+    }
+
+    private synchronized void publish(boolean wicket, ScoreUpdate.Builder builder) {
+        if (suspended) {
+            return;
+        }
+        long sequence = latest == null ? 0 : latest.sequence() + 1;
+        ScoreUpdate update = builder.setSequence(sequence).build();
+        ScoreFrame frame = ScoreFrame.of(sequence, update, wicket, latest == null ? null : latest.update(), matchStats());
+        latest = frame;
+        if (sequence < resumeFrom) {
+            return; // already logged and delivered before a handoff
+        }
+        if (ballLog != null && !ballLog.isFull() && !ballLog.append(frame)) {
+            log.warn("Ball log for match {} is full; frames from {} on can only be watched live", matchId, sequence);
+        }
+        for (MatchSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onFrame(frame);
+            } catch (RuntimeException e) {
+                unsubscribe(subscriber); // stream already closed
+            }
+        }
+    }
+
+    private synchronized void finish(Throwable error) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (ballLog != null) {
+            ballLog.markComplete();
+        }
+        for (MatchSubscriber subscriber : subscribers) {
+            try {
+                if (error == null) {
+                    subscriber.onMatchEnd();
+                } else {
+                    subscriber.onMatchError(error);
+                }
+            } catch (RuntimeException ignored) {
+                // stream already closed
+            }
+        }
+        subscribers.clear();
+        onFinish.run();
+    }
+
+    private MatchStats matchStats() {
+        MatchStats.Builder builder = MatchStats.newBuilder()
+                .setCurrentRunRate(stats.currentRunRate())
+                .setRequiredRunRate(stats.requiredRunRate())
+                .setProjectedScore(stats.projectedScore())
+                .setPartnershipRuns(stats.partnershipRuns())
+                .setPartnershipBalls(stats.partnershipBalls())
+                .setRunsRequired(stats.runsRequired())
+                .setBallsRemaining(stats.ballsRemaining());
+        for (int o = 1; o <= stats.oversStarted(); o++) {
+            builder.addRunsPerOver(stats.runsInOver(o));
+        }
+        return builder.build();
+    }
+
+    private static Outcome outcomeOf(int outcome) {
+        return switch (outcome) {
+            case CricketEngine.WICKET -> Outcome.OUTCOME_WICKET;
+            case CricketEngine.WIDE -> Outcome.OUTCOME_WIDE;
+            case CricketEngine.NO_BALL -> Outcome.OUTCOME_NO_BALL;
+            case 0 -> Outcome.OUTCOME_DOT;
+            case 4 -> Outcome.OUTCOME_FOUR;
+            case 6 -> Outcome.OUTCOME_SIX;
+            default -> Outcome.OUTCOME_RUNS;
+        };
+    }
+
+    private ScoreUpdate.Builder inningsEnd() {
+        return ScoreUpdate.newBuilder()
+                .setInnings(innings)
+                .setTarget(target)
+                .setOver(0)
+                .setBall(0)
+                .setRuns(0)
+                .setTotal(latestTotal)
+                .setWickets(latestWickets)
+                .setComment(Commentary.inningsEnd(innings, latestTotal, latestWickets, target))
+                .setStatus("INNINGS_END");
+    }
+}
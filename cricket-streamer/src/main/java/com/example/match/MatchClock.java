@@ -0,0 +1,87 @@
+package com.example.match;
+
+/**
+ * Paces a match. The scheduler asks the clock how long to wait before each ball, so the same
+ * match can be watched in real time, replayed faster for a demo, or run flat out in a load test.
+ */
+public interface MatchClock {
+
+    /**
+     * Delay before the next ball, in nanoseconds, for a match whose real-time gap between balls
+     * is {@code ballIntervalNanos}.
+     */
+    long delayNanos(long ballIntervalNanos);
+
+    /**
+     * Whether the next ball waits until every subscriber has written out the previous one.
+     * Without this a match running flat out would outpace its viewers and leave most balls to
+     * their slow-consumer policy.
+     */
+    default boolean demandDriven() {
+        return false;
+    }
+
+    /** A string {@link #parse(String)} turns back into an equivalent clock, for match snapshots. */
+    String spec();
+
+    /** One ball every {@code cricket.match.ball-interval-ms}. */
+    static MatchClock realTime() {
+        return new SpeedUp(1);
+    }
+
+    /** Real-time pacing divided by {@code factor}. */
+    static MatchClock speedUp(double factor) {
+        if (!(factor > 0) || Double.isInfinite(factor)) {
+            throw new IllegalArgumentException("speed-up factor must be positive and finite: " + factor);
+        }
+        return new SpeedUp(factor);
+    }
+
+    /** No pause between balls; each ball is bowled as soon as every viewer has taken the last. */
+    static MatchClock asFastAsPossible() {
+        return new AsFastAsPossible();
+    }
+
+    static MatchClock parse(String spec) {
+        if (AsFastAsPossible.SPEC.equals(spec)) {
+            return asFastAsPossible();
+        }
+        if (spec != null && spec.startsWith(SpeedUp.PREFIX)) {
+            return speedUp(Double.parseDouble(spec.substring(SpeedUp.PREFIX.length())));
+        }
+        throw new IllegalArgumentException("Unknown match clock: " + spec);
+    }
+
+    record SpeedUp(double factor) implements MatchClock {
+        private static final String PREFIX = "speed-up:";
+
+        @Override
+        public long delayNanos(long ballIntervalNanos) {
+            return (long) (ballIntervalNanos / factor);
+        }
+
+        @Override
+        public String spec() {
+            return PREFIX + factor;
+        }
+    }
+
+    record AsFastAsPossible() implements MatchClock {
+        private static final String SPEC = "as-fast-as-possible";
+
+        @Override
+        public long delayNanos(long ballIntervalNanos) {
+            return 0;
+        }
+
+        @Override
+        public boolean demandDriven() {
+            return true;
+        }
+
+        @Override
+        public String spec() {
+            return SPEC;
+        }
+    }
+}
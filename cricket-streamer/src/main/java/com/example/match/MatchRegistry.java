@@ -0,0 +1,198 @@
+package com.example.match;
+
+import com.example.engine.OutcomeModel;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Hands out live matches to viewers. A named match is simulated once no matter how many viewers
+ * watch it and keeps running until it finishes; a request without a match id gets a private
+ * match that stops as soon as its viewer leaves.
+ *
+ * <p>Named matches record every frame in a {@link BallLog}, so viewers can resume from a
+ * sequence number after reconnecting, or replay a match that has already finished.
+ *
+ * <p>On shutdown the registry {@linkplain #drain() drains}: it stops taking viewers and suspends
+ * every live match, leaving a {@link MatchSnapshot} of each named one so the next process using
+ * the same log directory {@linkplain #resumeSuspended() resumes} it where it stopped.
+ */
+@Slf4j
+@Component
+public class MatchRegistry {
+
+    private static final Pattern MATCH_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final ConcurrentMap<String, LiveMatch> matches = new ConcurrentHashMap<>();
+    private final Set<LiveMatch> live = ConcurrentHashMap.newKeySet();
+    private final MatchScheduler scheduler;
+    private final BallLogStore logs;
+    private final OutcomeModel model;
+    private final int maxLiveMatches;
+
+    private volatile boolean draining;
+
+    public MatchRegistry(MatchScheduler scheduler, BallLogStore logs, OutcomeModel model,
+                         @Value("${cricket.match.max-live-matches:100000}") int maxLiveMatches) {
+        this.scheduler = scheduler;
+        this.logs = logs;
+        this.model = model;
+        this.maxLiveMatches = maxLiveMatches;
+    }
+
+    public LiveMatch watch(String matchId, MatchSubscriber subscriber) {
+        return watch(matchId, -1, subscriber);
+    }
+
+    public LiveMatch watch(String matchId, long fromSequence, MatchSubscriber subscriber) {
+        return watch(matchId, fromSequence, MatchSetup.realTime(), subscriber);
+    }
+
+    /**
+     * Subscribes to the named match, starting it if nobody is watching it yet, or to a new
+     * private match when {@code matchId} is empty. With a non-negative {@code fromSequence} the
+     * subscriber first replays everything it missed; if the match has already finished on this
+     * node it gets the replay and the stream completes. Returns the match being watched, or
+     * {@code null} when the subscriber was served entirely from a finished match's log. Without
+     * {@code fromSequence}, the id of a finished match starts a new match in a new log
+     * generation; the old log is left as it is for viewers still replaying it.
+     *
+     * <p>{@code setup} only applies to a match this call starts; joining a named match that is
+     * already running keeps that match's pace and seed.
+     */
+    public LiveMatch watch(String matchId, long fromSequence, MatchSetup setup, MatchSubscriber subscriber) {
+        if (draining) {
+            throw Status.UNAVAILABLE.withDescription("Node is shutting down").asRuntimeException();
+        }
+        if (matchId == null || matchId.isEmpty()) {
+            checkCapacity();
+            LiveMatch match = new LiveMatch(null, true, null, setup, model);
+            match.subscribe(subscriber);
+            start(match);
+            return match;
+        }
+        if (!MATCH_ID.matcher(matchId).matches()) {
+            throw Status.INVALID_ARGUMENT
+                    .withDescription("match_id must be 1-64 letters, digits, '.', '_' or '-'")
+                    .asRuntimeException();
+        }
+
+        LiveMatch match = matches.get(matchId);
+        if (match == null && fromSequence >= 0) {
+            BallLog played = logs.openExisting(matchId);
+            if (played != null && played.isComplete()) {
+                subscriber.onReplay(played.read(fromSequence));
+                subscriber.onMatchEnd();
+                return null;
+            }
+        }
+
+        if (match == null) {
+            // the log file is created and mapped before the match is published, never inside the map
+            checkCapacity();
+            BallLog ballLog = logs.create(matchId);
+            LiveMatch created = new LiveMatch(matchId, false, ballLog, setup, model);
+            match = matches.putIfAbsent(matchId, created);
+            if (match == null) {
+                created.subscribe(subscriber, fromSequence);
+                start(created);
+                return created;
+            }
+            logs.discard(ballLog);
+        }
+        match.subscribe(subscriber, fromSequence);
+        return match;
+    }
+
+    public LiveMatch find(String matchId) {
+        return matches.get(matchId);
+    }
+
+    public int namedMatches() {
+        return matches.size();
+    }
+
+    /**
+     * Stops accepting viewers and suspends every live match. Viewers are told to reconnect, and
+     * each named match leaves a snapshot next to its ball log. Returns how many matches were
+     * handed off.
+     */
+    public int drain() {
+        draining = true;
+        int handedOff = 0;
+        for (LiveMatch match : live) {
+            MatchSnapshot snapshot = match.suspend();
+            if (snapshot == null) {
+                continue;
+            }
+            try {
+                logs.saveSnapshot(snapshot);
+                handedOff++;
+            } catch (RuntimeException e) {
+                log.warn("Match {} cannot be resumed after shutdown", snapshot.matchId(), e);
+            }
+        }
+        return handedOff;
+    }
+
+    /**
+     * Restarts the named matches a previous process suspended in the same log directory. Each
+     * is replayed up to where it stopped, then carries on appending to its existing log, so
+     * viewers that reconnect with {@code from_sequence} miss nothing. Returns how many resumed.
+     */
+    public int resumeSuspended() {
+        int resumed = 0;
+        for (MatchSnapshot snapshot : logs.takeSnapshots()) {
+            String matchId = snapshot.matchId();
+            if (snapshot.outcomeModel() != null && !snapshot.outcomeModel().equals(model.id())) {
+                // replaying the seed with another model would not reproduce the frames already sent
+                log.warn("Not resuming match {}: it was bowled with outcome model {}, this process uses {}",
+                        matchId, snapshot.outcomeModel(), model.id());
+                continue;
+            }
+            try {
+                BallLog ballLog = logs.reopen(matchId);
+                if (ballLog.isComplete()) {
+                    continue;
+                }
+                LiveMatch match = new LiveMatch(matchId, false, ballLog, snapshot.setup(), model);
+                if (!match.fastForward(snapshot.nextSequence())) {
+                    continue; // ended on the last ball before the handoff
+                }
+                if (matches.putIfAbsent(matchId, match) == null) {
+                    start(match);
+                    resumed++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Cannot resume match {}", matchId, e);
+            }
+        }
+        return resumed;
+    }
+
+    private void start(LiveMatch match) {
+        live.add(match);
+        String matchId = match.matchId();
+        match.whenFinished(() -> {
+            live.remove(match);
+            if (matchId != null) {
+                matches.remove(matchId, match);
+            }
+        });
+        scheduler.start(match);
+    }
+
+    private void checkCapacity() {
+        if (scheduler.liveMatches() >= maxLiveMatches) {
+            throw Status.RESOURCE_EXHAUSTED
+                    .withDescription("Too many live matches on this node")
+                    .asRuntimeException();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.match;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives every live match from a small shared pool. A match only occupies a thread while a
+ * single delivery is being bowled; between balls it is just an entry in the scheduler's queue,
+ * so the number of concurrent streams is no longer bounded by the number of server threads.
+ *
+ * <p>The gap between balls comes from each match's {@link MatchClock}, scaled from
+ * {@code cricket.match.ball-interval-ms}. A demand-driven match whose viewers have not caught up
+ * is {@linkplain LiveMatch#park parked} rather than polled, and costs nothing until the viewer
+ * that was behind {@linkplain LiveMatch#wake() wakes} it.
+ */
+@Component
+public class MatchScheduler implements DisposableBean {
+
+    private final ScheduledExecutorService executor;
+    private final long ballIntervalNanos;
+    private final AtomicInteger liveMatches = new AtomicInteger();
+
+    public MatchScheduler(@Value("${cricket.match.ball-interval-ms:700}") long ballIntervalMillis,
+                          @Value("${cricket.match.scheduler-threads:0}") int threads) {
+        this.ballIntervalNanos = TimeUnit.MILLISECONDS.toNanos(ballIntervalMillis);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newScheduledThreadPool(poolSize, new MatchThreadFactory());
+    }
+
+    public void start(LiveMatch match) {
+        liveMatches.incrementAndGet();
+        try {
+            executor.execute(() -> tick(match));
+        } catch (RejectedExecutionException e) {
+            liveMatches.decrementAndGet();
+            match.fail(e);
+        }
+    }
+
+    public int liveMatches() {
+        return liveMatches.get();
+    }
+
+    private void tick(LiveMatch match) {
+        MatchClock clock = match.clock();
+        if (clock.demandDriven() && !match.isCancelled() && !match.subscribersReady()
+                && match.park(() -> reschedule(match, 0))) {
+            return; // off the queue until a subscriber catches up
+        }
+
+        boolean more;
+        try {
+            more = match.advance();
+        } catch (RuntimeException e) {
+            match.fail(e);
+            more = false;
+        }
+
+        if (!more) {
+            liveMatches.decrementAndGet();
+            return;
+        }
+        reschedule(match, clock.delayNanos(ballIntervalNanos));
+    }
+
+    private void reschedule(LiveMatch match, long delayNanos) {
+        try {
+            executor.schedule(() -> tick(match), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            liveMatches.decrementAndGet();
+            match.fail(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static final class MatchThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "match-scheduler-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
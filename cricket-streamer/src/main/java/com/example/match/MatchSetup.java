@@ -0,0 +1,36 @@
+package com.example.match;
+
+import com.example.grpc.StreamRequest;
+import io.grpc.Status;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How a new match is played: its pace and the seed its deliveries are drawn from. Two matches
+ * with the same seed bowl exactly the same balls, so their streams can be compared byte for byte.
+ */
+public record MatchSetup(MatchClock clock, long seed) {
+
+    /** Real-time pacing with a random seed, as used when a request does not ask otherwise. */
+    public static MatchSetup realTime() {
+        return new MatchSetup(MatchClock.realTime(), ThreadLocalRandom.current().nextLong());
+    }
+
+    /** The pace and seed a {@code StreamRequest} asks for. */
+    public static MatchSetup forRequest(StreamRequest request) {
+        MatchClock clock = switch (request.getPace()) {
+            case PACE_ACCELERATED -> {
+                if (!(request.getSpeedUp() > 0) || Double.isInfinite(request.getSpeedUp())) {
+                    throw Status.INVALID_ARGUMENT
+                            .withDescription("PACE_ACCELERATED needs a positive speed_up")
+                            .asRuntimeException();
+                }
+                yield MatchClock.speedUp(request.getSpeedUp());
+            }
+            case PACE_AS_FAST_AS_POSSIBLE -> MatchClock.asFastAsPossible();
+            default -> MatchClock.realTime();
+        };
+        long seed = request.hasSeed() ? request.getSeed() : ThreadLocalRandom.current().nextLong();
+        return new MatchSetup(clock, seed);
+    }
+}
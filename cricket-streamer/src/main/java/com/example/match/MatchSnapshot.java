@@ -0,0 +1,52 @@
+package com.example.match;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Everything needed to pick up a named match on another process: a match is fully determined by
+ * its seed, so the new owner replays the engine up to {@code nextSequence} without publishing and
+ * carries on from there, appending to the same {@link BallLog}. That only holds with the same
+ * outcome model, so its {@linkplain com.example.engine.OutcomeModel#id() id} is recorded too
+ * ({@code null} in snapshots written before it was).
+ */
+public record MatchSnapshot(String matchId, MatchSetup setup, long nextSequence, String outcomeModel) {
+
+    void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("match-id", matchId);
+        properties.setProperty("seed", Long.toString(setup.seed()));
+        properties.setProperty("clock", setup.clock().spec());
+        properties.setProperty("next-sequence", Long.toString(nextSequence));
+        properties.setProperty("outcome-model", outcomeModel);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static MatchSnapshot read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        try {
+            return new MatchSnapshot(
+                    properties.getProperty("match-id"),
+                    new MatchSetup(MatchClock.parse(properties.getProperty("clock")),
+                            Long.parseLong(properties.getProperty("seed"))),
+                    Long.parseLong(properties.getProperty("next-sequence")),
+                    properties.getProperty("outcome-model"));
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed match snapshot " + file, e);
+        }
+    }
+}
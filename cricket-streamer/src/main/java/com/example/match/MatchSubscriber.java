@@ -0,0 +1,32 @@
+package com.example.match;
+
+import java.util.List;
+
+/**
+ * Receives the frames produced by a {@link LiveMatch}. Callbacks for one match are never
+ * invoked concurrently, but they run on the match scheduler, so implementations must not block.
+ */
+public interface MatchSubscriber {
+
+    void onFrame(ScoreFrame frame);
+
+    /**
+     * Delivers frames the subscriber missed, before any live frame. Implementations may send
+     * them as fast as the transport allows rather than at match pace.
+     */
+    default void onReplay(List<ScoreFrame> frames) {
+        frames.forEach(this::onFrame);
+    }
+
+    /**
+     * Whether the subscriber can take another frame without buffering it. Matches on a
+     * {@linkplain MatchClock#demandDriven() demand-driven} clock wait for this before each ball.
+     */
+    default boolean isReady() {
+        return true;
+    }
+
+    void onMatchEnd();
+
+    void onMatchError(Throwable t);
+}
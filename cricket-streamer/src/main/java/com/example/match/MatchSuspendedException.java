@@ -0,0 +1,13 @@
+package com.example.match;
+
+/**
+ * Passed to {@link MatchSubscriber#onMatchError} when this node hands a match off during
+ * shutdown. The match goes on elsewhere; subscribers should tell viewers to reconnect and resume
+ * from the last sequence they saw rather than report a failure.
+ */
+public class MatchSuspendedException extends RuntimeException {
+
+    public MatchSuspendedException(String matchId) {
+        super(matchId == null ? "Node is shutting down" : "Match " + matchId + " is moving to another node");
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.match;
+
+import com.example.grpc.CompactScoreCodec;
+import com.example.grpc.MatchStats;
+import com.example.grpc.ScoreUpdate;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.util.JsonFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A {@link ScoreUpdate} together with its wire encodings. A match builds and serializes each
+ * update exactly once and hands the same frame to every subscriber, so the cost of a ball no
+ * longer grows with the number of viewers.
+ *
+ * <p>The compact encodings are produced on first use and then shared the same way.
+ *
+ * <p>{@code MatchStats} is kept out of {@link #bytes()} and encoded separately as the bytes of a
+ * {@code ScoreUpdate} holding only its {@code stats} field. Protobuf merges concatenated
+ * messages, so appending that suffix to the plain encoding gives the update with stats without
+ * serializing the update a second time.
+ */
+public final class ScoreFrame {
+
+    private static final JsonFormat.Printer JSON = JsonFormat.printer().omittingInsignificantWhitespace();
+
+    /**
+     * The update as JSON, the same JSON in UTF-8, and framed as a server-sent event carrying the
+     * sequence as its id. The arrays are shared, so callers must not modify them.
+     */
+    public record Json(String text, byte[] utf8, byte[] sseEvent) {
+    }
+
+    private final long sequence;
+    private final ScoreUpdate update;
+    private final ScoreUpdate previous;
+    private final boolean wicket;
+    private final byte[] bytes;
+    private final byte[] statsSuffix;
+
+    private volatile byte[] bytesWithStats;
+    private volatile Json json;
+    private volatile Json jsonWithStats;
+    private volatile byte[] compactDelta;
+    private volatile byte[] compactKeyframe;
+
+    private ScoreFrame(long sequence, ScoreUpdate update, byte[] bytes, byte[] statsSuffix, boolean wicket,
+                       ScoreUpdate previous) {
+        this.sequence = sequence;
+        this.update = update;
+        this.bytes = bytes;
+        this.statsSuffix = statsSuffix;
+        this.wicket = wicket;
+        this.previous = previous;
+    }
+
+    /**
+     * @param sequence position of the frame in its match, starting at 0
+     * @param wicket   whether this delivery took a wicket
+     * @param previous the match's preceding update, or {@code null} for the first frame
+     */
+    public static ScoreFrame of(long sequence, ScoreUpdate update, boolean wicket, ScoreUpdate previous) {
+        return of(sequence, update, wicket, previous, null);
+    }
+
+    /** @param stats aggregates after this delivery, or {@code null} if the match keeps none */
+    public static ScoreFrame of(long sequence, ScoreUpdate update, boolean wicket, ScoreUpdate previous,
+                                MatchStats stats) {
+        byte[] suffix = stats == null ? null : ScoreUpdate.newBuilder().setStats(stats).build().toByteArray();
+        return new ScoreFrame(sequence, update, update.toByteArray(), suffix, wicket, previous);
+    }
+
+    /** A frame whose encoding is already known, e.g. one read back from a {@link BallLog}. */
+    static ScoreFrame of(long sequence, ScoreUpdate update, byte[] bytes, byte[] statsSuffix, boolean wicket,
+                         ScoreUpdate previous) {
+        return new ScoreFrame(sequence, update, bytes, statsSuffix, wicket, previous);
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public ScoreUpdate update() {
+        return update;
+    }
+
+    /** The serialized update. Shared between subscribers, so callers must not modify it. */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /** The serialized update with its {@code MatchStats}, or just {@link #bytes()} if it has none. */
+    public byte[] bytesWithStats() {
+        if (statsSuffix == null) {
+            return bytes;
+        }
+        byte[] encoded = bytesWithStats;
+        if (encoded == null) {
+            encoded = Arrays.copyOf(bytes, bytes.length + statsSuffix.length);
+            System.arraycopy(statsSuffix, 0, encoded, bytes.length, statsSuffix.length);
+            bytesWithStats = encoded;
+        }
+        return encoded;
+    }
+
+    /** The encoded {@code stats} field alone, or {@code null}. Shared, so callers must not modify it. */
+    byte[] statsSuffix() {
+        return statsSuffix;
+    }
+
+    /** The update in proto3 JSON, for the web endpoints. Produced once per frame and variant. */
+    public Json json(boolean withStats) {
+        if (withStats && statsSuffix != null) {
+            Json encoded = jsonWithStats;
+            if (encoded == null) {
+                encoded = toJson(parse(bytesWithStats()));
+                jsonWithStats = encoded;
+            }
+            return encoded;
+        }
+        Json encoded = json;
+        if (encoded == null) {
+            encoded = toJson(update);
+            json = encoded;
+        }
+        return encoded;
+    }
+
+    /** Serialized {@code CompactScoreUpdate} relative to the preceding frame of the match. */
+    public byte[] compactDelta() {
+        byte[] encoded = compactDelta;
+        if (encoded == null) {
+            encoded = previous == null
+                    ? compactKeyframe()
+                    : CompactScoreCodec.encode(sequence, update, wicket, previous).toByteArray();
+            compactDelta = encoded;
+        }
+        return encoded;
+    }
+
+    /** Serialized {@code CompactScoreUpdate} carrying absolute values. */
+    public byte[] compactKeyframe() {
+        byte[] encoded = compactKeyframe;
+        if (encoded == null) {
+            encoded = CompactScoreCodec.encode(sequence, update, wicket, null).toByteArray();
+            compactKeyframe = encoded;
+        }
+        return encoded;
+    }
+
+    public boolean isWicket() {
+        return wicket;
+    }
+
+    /** Wickets and boundaries. */
+    public boolean isMilestone() {
+        return wicket || (!isInningsEnd() && update.getRuns() >= 4);
+    }
+
+    public boolean isInningsEnd() {
+        return "INNINGS_END".equals(update.getStatus());
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+
+    private Json toJson(ScoreUpdate message) {
+        try {
+            String text = JSON.print(message);
+            byte[] event = ("id: " + sequence + "\ndata: " + text + "\n\n").getBytes(StandardCharsets.UTF_8);
+            return new Json(text, text.getBytes(StandardCharsets.UTF_8), event);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Cannot print score update as JSON", e);
+        }
+    }
+
+    private static ScoreUpdate parse(byte[] bytes) {
+        try {
+            return ScoreUpdate.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Corrupt score frame", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.web;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+/** {@code GET /matches/stream}: the score feed as server-sent events. */
+@RestController
+public class ScoreSseController {
+
+    private final WebScoreStreams streams;
+
+    public ScoreSseController(WebScoreStreams streams) {
+        this.streams = streams;
+    }
+
+    @GetMapping(path = "/matches/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> stream(@RequestParam MultiValueMap<String, String> params,
+                                                      @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(0L); // no timeout; the match ends the stream
+        try {
+            streams.streamSse(params, lastEventId, emitter);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (StatusRuntimeException e) {
+            HttpStatus status = e.getStatus().getCode() == Status.Code.INVALID_ARGUMENT
+                    ? HttpStatus.BAD_REQUEST
+                    : HttpStatus.SERVICE_UNAVAILABLE;
+            throw new ResponseStatusException(status, e.getStatus().getDescription(), e);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noCache())
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+}
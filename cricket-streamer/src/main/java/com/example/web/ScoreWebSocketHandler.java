@@ -0,0 +1,45 @@
+package com.example.web;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * {@code /matches/ws}: the score feed as one JSON text message per update. The stream is chosen
+ * by the connection's query parameters; messages from the client are ignored.
+ */
+@Component
+public class ScoreWebSocketHandler extends TextWebSocketHandler {
+
+    private final WebScoreStreams streams;
+
+    public ScoreWebSocketHandler(WebScoreStreams streams) {
+        this.streams = streams;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        try {
+            var params = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+            streams.streamWebSocket(params, session);
+        } catch (IllegalArgumentException e) {
+            session.close(CloseStatus.BAD_DATA.withReason(String.valueOf(e.getMessage())));
+        } catch (StatusRuntimeException e) {
+            CloseStatus status = e.getStatus().getCode() == Status.Code.INVALID_ARGUMENT
+                    ? CloseStatus.BAD_DATA
+                    : CloseStatus.SERVICE_OVERLOAD;
+            session.close(status.withReason(String.valueOf(e.getStatus().getDescription())));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        if (session.getAttributes().get(WebScoreStreams.SUBSCRIBER_ATTRIBUTE) instanceof WebSocketScoreSubscriber subscriber) {
+            subscriber.cancel();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.web;
+
+import com.example.grpc.ScoreStreamMetrics;
+import com.example.match.MatchSuspendedException;
+import com.example.match.ScoreFrame;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes each frame's shared, pre-framed server-sent event bytes straight to the response.
+ * Every event carries the frame's sequence as its id, so a browser {@code EventSource} that
+ * reconnects resumes from the ball after the last one it saw. That is also how viewers follow a
+ * match handed off at shutdown: the stream just ends without an {@code end} event.
+ */
+final class SseScoreSubscriber extends WebScoreSubscriber {
+
+    /** Tells {@code EventSource} clients the match is over, so they close instead of reconnecting. */
+    private static final byte[] END = "event: end\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ERROR = "event: error\ndata: {\"error\":\"Match simulation failed\"}\n\n"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ResponseBodyEmitter emitter;
+
+    SseScoreSubscriber(ResponseBodyEmitter emitter, Executor writer, ScoreStreamMetrics metrics, boolean withStats) {
+        super(writer, metrics, withStats);
+        this.emitter = emitter;
+        emitter.onCompletion(this::cancel);
+        emitter.onTimeout(this::cancel);
+        emitter.onError(e -> cancel());
+    }
+
+    @Override
+    void write(ScoreFrame frame) throws Exception {
+        emitter.send(frame.json(withStats).sseEvent(), MediaType.TEXT_EVENT_STREAM);
+    }
+
+    @Override
+    void complete() throws Exception {
+        emitter.send(END, MediaType.TEXT_EVENT_STREAM);
+        emitter.complete();
+    }
+
+    @Override
+    void fail(Throwable t) throws Exception {
+        if (t instanceof MatchSuspendedException) {
+            emitter.complete();
+            return;
+        }
+        emitter.send(ERROR, MediaType.TEXT_EVENT_STREAM);
+        emitter.complete();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.web;
+
+import com.example.grpc.Pace;
+import com.example.grpc.ScoreStreamMetrics;
+import com.example.grpc.StreamRequest;
+import com.example.match.LiveMatch;
+import com.example.match.MatchRegistry;
+import com.example.match.MatchSetup;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Connects browser viewers to the same {@link MatchRegistry} as the gRPC service, so a named
+ * match is simulated and encoded once however its viewers are split between gRPC, SSE and
+ * WebSocket. Writes to browsers block, so they run on virtual threads rather than on the match
+ * scheduler.
+ *
+ * <p>Query parameters mirror {@code StreamRequest}: {@code match_id}, {@code from_sequence},
+ * {@code include_stats}, {@code pace}, {@code speed_up} and {@code seed}.
+ */
+@Component
+public class WebScoreStreams implements DisposableBean {
+
+    /** Session attribute holding a WebSocket viewer's subscriber. */
+    static final String SUBSCRIBER_ATTRIBUTE = WebSocketScoreSubscriber.class.getName();
+
+    private final MatchRegistry registry;
+    private final ScoreStreamMetrics metrics;
+    private final ExecutorService writers =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("web-stream-", 0).factory());
+
+    public WebScoreStreams(MatchRegistry registry, ScoreStreamMetrics metrics) {
+        this.registry = registry;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param lastEventId the SSE {@code Last-Event-ID} header, or {@code null}; takes precedence
+     *                    over {@code from_sequence}
+     * @throws IllegalArgumentException       if a parameter is malformed
+     * @throws io.grpc.StatusRuntimeException if the match cannot be watched
+     */
+    void streamSse(MultiValueMap<String, String> params, String lastEventId, ResponseBodyEmitter emitter) {
+        StreamRequest request = request(params, lastEventId);
+        watch(request, new SseScoreSubscriber(emitter, writers, metrics, request.getIncludeStats()));
+    }
+
+    /**
+     * Same as {@link #streamSse} for a WebSocket session. The subscriber is stored under
+     * {@link #SUBSCRIBER_ATTRIBUTE} before it starts receiving frames.
+     */
+    void streamWebSocket(MultiValueMap<String, String> params, WebSocketSession session) {
+        StreamRequest request = request(params, null);
+        WebSocketScoreSubscriber subscriber = new WebSocketScoreSubscriber(session, writers, metrics,
+                request.getIncludeStats());
+        session.getAttributes().put(SUBSCRIBER_ATTRIBUTE, subscriber);
+        watch(request, subscriber);
+    }
+
+    @Override
+    public void destroy() {
+        writers.shutdownNow();
+    }
+
+    private void watch(StreamRequest request, WebScoreSubscriber subscriber) {
+        long fromSequence = request.hasFromSequence() ? request.getFromSequence() : -1;
+        LiveMatch match = registry.watch(request.getMatchId(), fromSequence, MatchSetup.forRequest(request), subscriber);
+        subscriber.attach(match);
+    }
+
+    static StreamRequest request(MultiValueMap<String, String> params, String lastEventId) {
+        StreamRequest.Builder request = StreamRequest.newBuilder();
+        String matchId = params.getFirst("match_id");
+        if (matchId != null) {
+            request.setMatchId(matchId);
+        }
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            request.setFromSequence(Long.parseUnsignedLong(lastEventId.trim()) + 1);
+        } else if (params.getFirst("from_sequence") != null) {
+            request.setFromSequence(Long.parseUnsignedLong(params.getFirst("from_sequence")));
+        }
+        request.setIncludeStats(Boolean.parseBoolean(params.getFirst("include_stats")));
+        String pace = params.getFirst("pace");
+        if (pace != null) {
+            String name = pace.toUpperCase(Locale.ROOT);
+            request.setPace(Pace.valueOf(name.startsWith("PACE_") ? name : "PACE_" + name));
+        }
+        if (params.getFirst("speed_up") != null) {
+            request.setSpeedUp(Double.parseDouble(params.getFirst("speed_up")));
+        }
+        if (params.getFirst("seed") != null) {
+            request.setSeed(Long.parseLong(params.getFirst("seed")));
+        }
+        return request.build();
+    }
+}
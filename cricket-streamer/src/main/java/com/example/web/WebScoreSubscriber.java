@@ -0,0 +1,178 @@
+package com.example.web;
+
+import com.example.grpc.ScoreStreamMetrics;
+import com.example.match.LiveMatch;
+import com.example.match.MatchSubscriber;
+import com.example.match.ScoreFrame;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Base for browser viewers. Servlet and WebSocket writes block, so frames are only queued on the
+ * match scheduler thread and written out by a task on {@link WebScoreStreams}' writer executor.
+ * While a write is in flight, newer balls replace the last queued one (innings summaries and
+ * replayed frames are always kept), the same as {@code CONFLATE} on the gRPC streams.
+ */
+abstract class WebScoreSubscriber implements MatchSubscriber {
+
+    private final Executor writer;
+    private final ScoreStreamMetrics metrics;
+    protected final boolean withStats;
+
+    // guarded by this
+    private final ArrayDeque<ScoreFrame> queue = new ArrayDeque<>();
+    private int replayQueued;
+    private boolean writing;
+    private boolean ended;
+    private boolean closed;
+    private Throwable error;
+
+    private volatile LiveMatch match;
+    private volatile boolean cancelled;
+
+    WebScoreSubscriber(Executor writer, ScoreStreamMetrics metrics, boolean withStats) {
+        this.writer = writer;
+        this.metrics = metrics;
+        this.withStats = withStats;
+    }
+
+    /** Writes one frame; blocks until the transport has taken it. */
+    abstract void write(ScoreFrame frame) throws Exception;
+
+    /** Ends the stream after the last frame of the match. */
+    abstract void complete() throws Exception;
+
+    /** Ends the stream after the match failed. */
+    abstract void fail(Throwable t) throws Exception;
+
+    void attach(LiveMatch match) {
+        if (match == null) {
+            return; // served from a finished match's log
+        }
+        this.match = match;
+        if (cancelled) {
+            match.unsubscribe(this);
+        }
+    }
+
+    @Override
+    public synchronized void onFrame(ScoreFrame frame) {
+        if (closed) {
+            return;
+        }
+        ScoreFrame last = queue.peekLast();
+        if (queue.size() > replayQueued && !last.isInningsEnd() && !frame.isInningsEnd()) {
+            queue.pollLast();
+            metrics.conflated();
+        }
+        queue.addLast(frame);
+        schedule();
+    }
+
+    @Override
+    public synchronized void onReplay(List<ScoreFrame> frames) {
+        if (closed) {
+            return;
+        }
+        queue.addAll(frames);
+        replayQueued += frames.size();
+        metrics.replayed(frames.size());
+        schedule();
+    }
+
+    @Override
+    public synchronized boolean isReady() {
+        return closed || (queue.isEmpty() && !writing);
+    }
+
+    @Override
+    public synchronized void onMatchEnd() {
+        ended = true;
+        schedule();
+    }
+
+    @Override
+    public synchronized void onMatchError(Throwable t) {
+        ended = true;
+        error = t;
+        queue.clear();
+        replayQueued = 0;
+        schedule();
+    }
+
+    /** Stops delivery after the viewer went away. */
+    void cancel() {
+        cancelled = true;
+        synchronized (this) {
+            closed = true;
+            queue.clear();
+        }
+        LiveMatch current = match;
+        if (current != null) {
+            current.unsubscribe(this);
+        }
+    }
+
+    private void schedule() {
+        if (writing || closed) {
+            return;
+        }
+        writing = true;
+        try {
+            writer.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            writing = false;
+            closed = true;
+            queue.clear();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            ScoreFrame next;
+            Throwable failure;
+            synchronized (this) {
+                if (closed) {
+                    writing = false;
+                    return;
+                }
+                next = queue.pollFirst();
+                if (next == null) {
+                    writing = false;
+                    if (!ended) {
+                        break;
+                    }
+                    closed = true;
+                }
+                if (next != null && replayQueued > 0) {
+                    replayQueued--;
+                }
+                failure = error;
+            }
+
+            try {
+                if (next == null) {
+                    if (failure == null) {
+                        complete();
+                    } else {
+                        fail(failure);
+                    }
+                    return;
+                }
+                write(next);
+                metrics.sent(1);
+            } catch (Exception e) {
+                cancel(); // viewer disconnected mid-write
+                return;
+            }
+        }
+        // caught up: a match parked on this viewer can carry on
+        LiveMatch current = match;
+        if (current != null) {
+            current.wake();
+        }
+    }
+}
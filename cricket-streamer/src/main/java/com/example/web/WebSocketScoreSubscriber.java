@@ -0,0 +1,40 @@
+package com.example.web;
+
+import com.example.grpc.ScoreStreamMetrics;
+import com.example.match.MatchSuspendedException;
+import com.example.match.ScoreFrame;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.Executor;
+
+/** Sends each frame's shared UTF-8 JSON as one WebSocket text message. */
+final class WebSocketScoreSubscriber extends WebScoreSubscriber {
+
+    private final WebSocketSession session;
+
+    WebSocketScoreSubscriber(WebSocketSession session, Executor writer, ScoreStreamMetrics metrics, boolean withStats) {
+        super(writer, metrics, withStats);
+        this.session = session;
+    }
+
+    @Override
+    void write(ScoreFrame frame) throws Exception {
+        session.sendMessage(new TextMessage(frame.json(withStats).utf8()));
+    }
+
+    @Override
+    void complete() throws Exception {
+        session.close(CloseStatus.NORMAL.withReason("Match finished"));
+    }
+
+    @Override
+    void fail(Throwable t) throws Exception {
+        if (t instanceof MatchSuspendedException) {
+            session.close(CloseStatus.SERVICE_RESTARTED.withReason("Reconnect and resume from the last sequence seen"));
+            return;
+        }
+        session.close(CloseStatus.SERVER_ERROR.withReason("Match simulation failed"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AliasSamplerTest {
+
+    @Test
+    void drawsInProportionToTheWeights() {
+        double[] weights = {35, 25, 0, 7, 8, 0, 7, 3, 15};
+        AliasSampler sampler = new AliasSampler(weights);
+        SplittableRandom random = new SplittableRandom(7);
+        int draws = 1_000_000;
+        int[] counts = new int[weights.length];
+        for (int i = 0; i < draws; i++) {
+            counts[sampler.sample(random)]++;
+        }
+
+        for (int i = 0; i < weights.length; i++) {
+            assertThat(counts[i] / (double) draws).as("index %d", i).isCloseTo(weights[i] / 100, within(0.005));
+        }
+        assertThat(counts[2]).isZero();
+        assertThat(counts[5]).isZero();
+    }
+
+    @Test
+    void singlePositiveWeightIsAlwaysDrawn() {
+        AliasSampler sampler = new AliasSampler(new double[]{0, 0, 1, 0});
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(sampler.sample(random)).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void rejectsWeightsItCannotSampleFrom() {
+        assertThatThrownBy(() -> new AliasSampler(new double[]{0, 0})).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AliasSampler(new double[]{1, -1})).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AliasSampler(new double[]{1, Double.NaN})).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AliasSampler(new double[]{1, Double.POSITIVE_INFINITY}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CricketEngineTest {
+
+    @Test
+    void extrasBeyondTheCapAreBowledAsDotBalls() {
+        OutcomeModel onlyWides = (random, innings, over) -> CricketEngine.WIDE;
+        CricketEngine engine = new CricketEngine(new SplittableRandom(1), onlyWides);
+        InningsBuffer buffer = new InningsBuffer();
+
+        engine.playInnings(buffer, 0);
+
+        assertThat(buffer.size()).isEqualTo(CricketEngine.MAX_DELIVERIES).isEqualTo(buffer.capacity());
+        assertThat(engine.legalBalls()).isEqualTo(CricketEngine.OVERS * CricketEngine.BALLS);
+        assertThat(engine.total()).isEqualTo(CricketEngine.OVERS * CricketEngine.MAX_EXTRAS_PER_OVER);
+        for (int i = 0; i < buffer.size(); i++) {
+            int perOver = CricketEngine.BALLS + CricketEngine.MAX_EXTRAS_PER_OVER;
+            int expected = i % perOver < CricketEngine.MAX_EXTRAS_PER_OVER ? CricketEngine.WIDE : 0;
+            assertThat(InningsBuffer.outcome(buffer.get(i))).as("delivery %d", i).isEqualTo(expected);
+            assertThat(InningsBuffer.over(buffer.get(i))).as("delivery %d", i).isEqualTo(i / perOver + 1);
+        }
+    }
+}
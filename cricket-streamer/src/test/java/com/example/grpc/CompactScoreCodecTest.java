@@ -0,0 +1,164 @@
+package com.example.grpc;
+
+import com.example.engine.Commentary;
+import com.example.engine.CricketEngine;
+import com.example.engine.TableOutcomeModel;
+import com.example.match.LiveMatch;
+import com.example.match.MatchSetup;
+import com.example.match.MatchSubscriber;
+import com.example.match.ScoreFrame;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactScoreCodecTest {
+
+    /** One of every kind of ball, both innings summaries and the change of innings in between. */
+    private final List<ScoreUpdate> updates = new ArrayList<>();
+    private final List<Boolean> wickets = new ArrayList<>();
+
+    CompactScoreCodecTest() {
+        int total = 0;
+        int out = 0;
+        int[] firstInnings = {0, 1, 4, 2, CricketEngine.WICKET, 6, 3, 5};
+        for (int i = 0; i < firstInnings.length; i++) {
+            int outcome = firstInnings[i];
+            total += Math.max(outcome, 0);
+            out += outcome == CricketEngine.WICKET ? 1 : 0;
+            ball(1, 0, 1 + i / 6, 1 + i % 6, outcome, total, out);
+        }
+        summary(1, 0, total, out);
+
+        int target = total + 1;
+        ball(2, target, 1, 1, 6, 6, 0);
+        ball(2, target, 1, 2, CricketEngine.WICKET, 6, 1);
+        ball(2, target, 1, 3, 4, 10, 1);
+        summary(2, target, 10, 1);
+    }
+
+    @Test
+    void deltasDecodeBackToTheSameScores() throws InvalidProtocolBufferException {
+        CompactScoreCodec.Decoder decoder = new CompactScoreCodec.Decoder();
+        ScoreUpdate previous = null;
+        for (int i = 0; i < updates.size(); i++) {
+            CompactScoreUpdate compact = CompactScoreCodec.encode(i, updates.get(i), wickets.get(i), previous);
+            // through the wire format, as a client would get it
+            assertSameScore(decoder.decode(CompactScoreUpdate.parseFrom(compact.toByteArray())), updates.get(i));
+            previous = updates.get(i);
+        }
+    }
+
+    @Test
+    void deltaOfAnOrdinaryBallIsSmall() {
+        CompactScoreUpdate delta = CompactScoreCodec.encode(2, updates.get(2), false, updates.get(1));
+        CompactScoreUpdate keyframe = CompactScoreCodec.encode(2, updates.get(2), false, null);
+
+        assertThat(delta.getKeyframe()).isFalse();
+        assertThat(keyframe.getKeyframe()).isTrue();
+        assertThat(delta.getSerializedSize()).isLessThan(keyframe.getSerializedSize());
+        assertThat(delta.getSerializedSize()).isLessThan(updates.get(2).getSerializedSize() / 2);
+    }
+
+    @Test
+    void keyframeRestartsDecodingMidStream() {
+        int middle = updates.size() / 2;
+        CompactScoreCodec.Decoder decoder = new CompactScoreCodec.Decoder();
+        assertSameScore(decoder.decode(CompactScoreCodec.encode(middle, updates.get(middle), false, null)),
+                updates.get(middle));
+        for (int i = middle + 1; i < updates.size(); i++) {
+            CompactScoreUpdate delta = CompactScoreCodec.encode(i, updates.get(i), wickets.get(i), updates.get(i - 1));
+            assertSameScore(decoder.decode(delta), updates.get(i));
+        }
+    }
+
+    @Test
+    void deltaAfterAGapIsRejected() {
+        CompactScoreCodec.Decoder decoder = new CompactScoreCodec.Decoder();
+        decoder.decode(CompactScoreCodec.encode(0, updates.get(0), false, null));
+        CompactScoreUpdate skipped = CompactScoreCodec.encode(2, updates.get(2), false, updates.get(1));
+
+        assertThatThrownBy(() -> decoder.decode(skipped)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void everyFrameOfAMatchWithExtrasRoundTrips() throws InvalidProtocolBufferException {
+        // every outcome equally likely, so the match has wides, no-balls, wickets and odd runs
+        Properties table = new Properties();
+        table.setProperty("default", "dot:1, 1:1, 2:1, 3:1, 4:1, 5:1, 6:1, wicket:1, wide:1, noball:1");
+        LiveMatch match = new LiveMatch(null, false, null,
+                MatchSetup.forRequest(StreamRequest.newBuilder()
+                        .setPace(Pace.PACE_AS_FAST_AS_POSSIBLE).setSeed(42).build()), TableOutcomeModel.from(table));
+        List<ScoreFrame> frames = new ArrayList<>();
+        match.subscribe(new MatchSubscriber() {
+            @Override
+            public void onFrame(ScoreFrame frame) {
+                frames.add(frame);
+            }
+
+            @Override
+            public void onMatchEnd() {
+            }
+
+            @Override
+            public void onMatchError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+        while (match.advance()) {
+            // bowl the whole match
+        }
+
+        CompactScoreCodec.Decoder decoder = new CompactScoreCodec.Decoder();
+        for (ScoreFrame frame : frames) {
+            assertThat(decoder.decode(CompactScoreUpdate.parseFrom(frame.compactDelta()))).isEqualTo(frame.update());
+        }
+        assertThat(frames).extracting(f -> f.update().getOutcome())
+                .contains(Outcome.OUTCOME_WIDE, Outcome.OUTCOME_NO_BALL, Outcome.OUTCOME_WICKET, Outcome.OUTCOME_RUNS);
+    }
+
+    private void ball(int innings, int target, int over, int ball, int outcome, int total, int out) {
+        updates.add(ScoreUpdate.newBuilder()
+                .setInnings(innings)
+                .setTarget(target)
+                .setOver(over)
+                .setBall(ball)
+                .setRuns(Math.max(outcome, 0))
+                .setTotal(total)
+                .setWickets(out)
+                .setComment(Commentary.ball(outcome))
+                .setStatus("PLAY")
+                .build());
+        wickets.add(outcome == CricketEngine.WICKET);
+    }
+
+    private void summary(int innings, int target, int total, int out) {
+        updates.add(ScoreUpdate.newBuilder()
+                .setInnings(innings)
+                .setTarget(target)
+                .setTotal(total)
+                .setWickets(out)
+                .setComment(Commentary.inningsEnd(innings, total, out, target))
+                .setStatus("INNINGS_END")
+                .build());
+        wickets.add(false);
+    }
+
+    /** Compares what a ScoreUpdate says about the score; fields added since are checked elsewhere. */
+    private static void assertSameScore(ScoreUpdate decoded, ScoreUpdate expected) {
+        assertThat(decoded.getInnings()).isEqualTo(expected.getInnings());
+        assertThat(decoded.getTarget()).isEqualTo(expected.getTarget());
+        assertThat(decoded.getOver()).isEqualTo(expected.getOver());
+        assertThat(decoded.getBall()).isEqualTo(expected.getBall());
+        assertThat(decoded.getRuns()).isEqualTo(expected.getRuns());
+        assertThat(decoded.getTotal()).isEqualTo(expected.getTotal());
+        assertThat(decoded.getWickets()).isEqualTo(expected.getWickets());
+        assertThat(decoded.getComment()).isEqualTo(expected.getComment());
+        assertThat(decoded.getStatus()).isEqualTo(expected.getStatus());
+    }
+}
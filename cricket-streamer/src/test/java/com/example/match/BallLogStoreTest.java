@@ -0,0 +1,54 @@
+package com.example.match;
+
+import com.example.grpc.ScoreUpdate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BallLogStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reusingAFinishedIdStartsANewGenerationAndKeepsTheOldReplay() {
+        BallLogStore store = new BallLogStore(dir, 4096);
+        BallLog first = store.create("final");
+        first.append(frame(0, "first match"));
+        first.markComplete();
+
+        BallLog replay = store.openExisting("final");
+        assertThat(replay.isComplete()).isTrue();
+        assertThat(store.openExisting("final")).as("mapped once per finished match").isSameAs(replay);
+
+        BallLog second = store.create("final");
+        assertThat(second.file()).isNotEqualTo(first.file());
+        second.append(frame(0, "second match"));
+        assertThat(replay.read(0)).extracting(f -> f.update().getComment()).containsExactly("first match");
+
+        second.markComplete();
+        assertThat(store.openExisting("final").read(0)).extracting(f -> f.update().getComment())
+                .containsExactly("second match");
+        assertThat(new BallLogStore(dir, 4096).create("final").file().getFileName())
+                .as("a new process carries on from the generations on disk")
+                .hasToString("final.3.balls");
+    }
+
+    @Test
+    void dottedIdsDoNotShareGenerations() {
+        BallLogStore store = new BallLogStore(dir, 4096);
+        store.create("a.1").markComplete();
+
+        assertThat(store.openExisting("a")).isNull();
+        assertThat(store.create("a").file().getFileName()).hasToString("a.1.balls");
+        assertThat(store.openExisting("a.1").isComplete()).isTrue();
+    }
+
+    private static ScoreFrame frame(long sequence, String comment) {
+        ScoreUpdate update = ScoreUpdate.newBuilder().setSequence(sequence).setComment(comment).build();
+        return ScoreFrame.of(sequence, update, false, null);
+    }
+}
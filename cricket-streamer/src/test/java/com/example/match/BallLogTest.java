@@ -0,0 +1,76 @@
+package com.example.match;
+
+import com.example.grpc.ScoreUpdate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BallLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysFromAnySequenceOnceComplete() {
+        Path file = dir.resolve("match.log");
+        BallLog log = BallLog.create(file, 4096);
+        ScoreUpdate previous = null;
+        for (int i = 0; i < 5; i++) {
+            ScoreFrame frame = frame(i, "ball " + i, previous);
+            assertThat(log.append(frame)).isTrue();
+            previous = frame.update();
+        }
+        log.markComplete();
+
+        BallLog played = BallLog.open(file);
+        assertThat(played.isComplete()).isTrue();
+        List<ScoreFrame> frames = played.read(2);
+        assertThat(frames).extracting(ScoreFrame::sequence).containsExactly(2L, 3L, 4L);
+        assertThat(frames).extracting(f -> f.update().getComment()).containsExactly("ball 2", "ball 3", "ball 4");
+    }
+
+    @Test
+    void staysFullOnceAFrameIsRefused() {
+        ScoreFrame first = frame(0, "x".repeat(100), null);
+        ScoreFrame second = frame(1, "y".repeat(100), first.update());
+        ScoreFrame shortFrame = frame(3, "", null);
+        // two long frames, then exactly enough for a short frame and the end marker
+        int capacity = record(first) + record(second) + record(shortFrame) + Integer.BYTES;
+        Path file = dir.resolve("full.log");
+        BallLog log = BallLog.create(file, capacity);
+
+        assertThat(log.append(first)).isTrue();
+        assertThat(log.append(second)).isTrue();
+        assertThat(log.append(frame(2, "z".repeat(100), null))).isFalse();
+        assertThat(log.append(shortFrame)).as("would fit, but its sequence would be wrong").isFalse();
+        assertThat(log.isFull()).isTrue();
+        log.force();
+
+        BallLog resumed = BallLog.reopen(file, capacity);
+        assertThat(resumed.isFull()).isTrue();
+        assertThat(resumed.append(shortFrame)).isFalse();
+        resumed.markComplete();
+
+        BallLog played = BallLog.open(file);
+        assertThat(played.isComplete()).isTrue();
+        assertThat(played.read(0)).extracting(f -> f.update().getComment())
+                .containsExactly("x".repeat(100), "y".repeat(100));
+    }
+
+    private static int record(ScoreFrame frame) {
+        return Integer.BYTES + 1 + frame.bytes().length;
+    }
+
+    private static ScoreFrame frame(long sequence, String comment, ScoreUpdate previous) {
+        ScoreUpdate update = ScoreUpdate.newBuilder()
+                .setSequence(sequence)
+                .setOver((int) sequence)
+                .setComment(comment)
+                .build();
+        return ScoreFrame.of(sequence, update, false, previous);
+    }
+}
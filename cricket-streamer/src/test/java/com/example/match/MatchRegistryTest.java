@@ -0,0 +1,135 @@
+package com.example.match;
+
+import com.example.engine.OutcomeModel;
+import com.example.grpc.ScoreUpdate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatchRegistryTest {
+
+    private static final long SEED = 42;
+    private static final int BALLS_BEFORE_HANDOFF = 20;
+
+    @TempDir
+    Path dir;
+
+    private final MatchScheduler before = new MatchScheduler(700, 1);
+    private final MatchScheduler after = new MatchScheduler(700, 1);
+
+    @AfterEach
+    void stop() {
+        before.destroy();
+        after.destroy();
+    }
+
+    @Test
+    void drainedMatchResumesWhereItStoppedWithTheSameFrames() throws Exception {
+        MatchRegistry first = new MatchRegistry(before, new BallLogStore(dir, 262144), OutcomeModel.standard(), 100);
+        Viewer early = new Viewer(BALLS_BEFORE_HANDOFF);
+        first.watch("final", 0, fastSetup(), early);
+        assertThat(early.reachedLimit.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(first.drain()).isEqualTo(1);
+        assertThat(early.ended.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(early.error).isInstanceOf(MatchSuspendedException.class);
+
+        MatchRegistry second = new MatchRegistry(after, new BallLogStore(dir, 262144), OutcomeModel.standard(), 100);
+        assertThat(second.resumeSuspended()).isEqualTo(1);
+        Viewer late = new Viewer(Integer.MAX_VALUE);
+        second.watch("final", 0, fastSetup(), late);
+        assertThat(late.ended.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(late.error).isNull();
+
+        List<ScoreUpdate> uninterrupted = playThrough();
+        List<ScoreUpdate> resumed = late.updates();
+        for (int i = 0; i < resumed.size(); i++) {
+            assertThat(resumed.get(i).getSequence()).isEqualTo(i);
+        }
+        assertThat(resumed).isEqualTo(uninterrupted);
+        assertThat(early.updates()).isEqualTo(uninterrupted.subList(0, early.updates().size()));
+        assertThat(early.updates().size()).isGreaterThanOrEqualTo(BALLS_BEFORE_HANDOFF);
+    }
+
+    @Test
+    void matchBowledWithAnotherOutcomeModelIsNotResumed() throws Exception {
+        MatchRegistry first = new MatchRegistry(before, new BallLogStore(dir, 262144), OutcomeModel.standard(), 100);
+        Viewer early = new Viewer(BALLS_BEFORE_HANDOFF);
+        first.watch("final", 0, fastSetup(), early);
+        assertThat(early.reachedLimit.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(first.drain()).isEqualTo(1);
+
+        OutcomeModel onlyDots = (random, innings, over) -> 0;
+        BallLogStore logs = new BallLogStore(dir, 262144);
+        MatchRegistry second = new MatchRegistry(after, logs, onlyDots, 100);
+
+        assertThat(second.resumeSuspended()).isZero();
+        assertThat(second.find("final")).isNull();
+        assertThat(after.liveMatches()).isZero();
+        assertThat(logs.takeSnapshots()).as("the snapshot is not offered again").isEmpty();
+    }
+
+    private static MatchSetup fastSetup() {
+        return new MatchSetup(MatchClock.asFastAsPossible(), SEED);
+    }
+
+    /** The same match bowled start to finish with no handoff. */
+    private static List<ScoreUpdate> playThrough() {
+        LiveMatch match = new LiveMatch(null, false, null, fastSetup(), OutcomeModel.standard());
+        Viewer viewer = new Viewer(Integer.MAX_VALUE);
+        match.subscribe(viewer);
+        while (match.advance()) {
+            // bowl on
+        }
+        return viewer.updates();
+    }
+
+    /** Takes {@code limit} frames, then stays not ready, which parks a demand-driven match. */
+    private static final class Viewer implements MatchSubscriber {
+        private final int limit;
+        private final List<ScoreUpdate> updates = new ArrayList<>();
+        final CountDownLatch reachedLimit = new CountDownLatch(1);
+        final CountDownLatch ended = new CountDownLatch(1);
+        volatile Throwable error;
+
+        Viewer(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void onFrame(ScoreFrame frame) {
+            updates.add(frame.update());
+            if (updates.size() >= limit) {
+                reachedLimit.countDown();
+            }
+        }
+
+        @Override
+        public synchronized boolean isReady() {
+            return updates.size() < limit;
+        }
+
+        @Override
+        public void onMatchEnd() {
+            ended.countDown();
+        }
+
+        @Override
+        public void onMatchError(Throwable t) {
+            error = t;
+            ended.countDown();
+        }
+
+        synchronized List<ScoreUpdate> updates() {
+            return new ArrayList<>(updates);
+        }
+    }
+}
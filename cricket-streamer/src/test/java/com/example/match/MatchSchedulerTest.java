@@ -0,0 +1,82 @@
+package com.example.match;
+
+import com.example.engine.OutcomeModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatchSchedulerTest {
+
+    private final MatchScheduler scheduler = new MatchScheduler(700, 1);
+
+    @AfterEach
+    void stop() {
+        scheduler.destroy();
+    }
+
+    @Test
+    void stalledFastMatchIsParkedUntilItsViewerCatchesUp() throws Exception {
+        LiveMatch match = new LiveMatch(null, true, null, new MatchSetup(MatchClock.asFastAsPossible(), 7),
+                OutcomeModel.standard());
+        StalledViewer viewer = new StalledViewer();
+        match.subscribe(viewer);
+        scheduler.start(match);
+
+        Thread.sleep(200);
+        assertThat(viewer.frames.get()).isEqualTo(1);
+        assertThat(viewer.readyChecks.get()).as("parked, not polled").isLessThan(10);
+
+        viewer.ready = true;
+        match.wake();
+        assertThat(viewer.ended.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(scheduler.liveMatches()).isZero();
+    }
+
+    @Test
+    void cancellingAParkedMatchFinishesIt() throws Exception {
+        LiveMatch match = new LiveMatch(null, true, null, new MatchSetup(MatchClock.asFastAsPossible(), 7),
+                OutcomeModel.standard());
+        StalledViewer viewer = new StalledViewer();
+        match.subscribe(viewer);
+        scheduler.start(match);
+        Thread.sleep(100);
+
+        match.cancel();
+        assertThat(viewer.ended.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(viewer.frames.get()).isEqualTo(1);
+    }
+
+    /** Takes the first ball, then stays not ready until told otherwise. */
+    private static final class StalledViewer implements MatchSubscriber {
+        final AtomicInteger frames = new AtomicInteger();
+        final AtomicInteger readyChecks = new AtomicInteger();
+        final CountDownLatch ended = new CountDownLatch(1);
+        volatile boolean ready;
+
+        @Override
+        public void onFrame(ScoreFrame frame) {
+            frames.incrementAndGet();
+        }
+
+        @Override
+        public boolean isReady() {
+            readyChecks.incrementAndGet();
+            return ready || frames.get() == 0;
+        }
+
+        @Override
+        public void onMatchEnd() {
+            ended.countDown();
+        }
+
+        @Override
+        public void onMatchError(Throwable t) {
+            ended.countDown();
+        }
+    }
+}